@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+public final class BenchmarkData {
+
+    public static final String[] WORDS = {
+            "star", "night", "river", "dark", "love", "war", "city", "dream",
+            "storm", "ghost", "winter", "road", "empire", "silent", "golden", "island"
+    };
+
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkData() {
+    }
+
+    public static EmbeddedDatabase createDatabase() {
+        Logger root = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.WARN);
+        return new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "data.sql")
+                .build();
+    }
+
+    public static void seed(JdbcTemplate jdbcTemplate, int films, int users, int likesPerUser, int friendsPerUser,
+                            int reviews) {
+        Random random = new Random(42);
+        int directors = Math.max(1, films / 10);
+
+        batch(jdbcTemplate, "INSERT INTO directors (name) VALUES (?)", directors,
+                (args, i) -> args.add("Director " + title(random)));
+        batch(jdbcTemplate, "INSERT INTO films (name, description, release_date, duration, rating_mpa_id) " +
+                        "VALUES (?, ?, ?, ?, ?)", films,
+                (args, i) -> {
+                    args.add(title(random) + " " + i);
+                    args.add("description " + i);
+                    args.add(Date.valueOf(LocalDate.of(1950 + random.nextInt(74), 1 + random.nextInt(12), 1)));
+                    args.add(60 + random.nextInt(120));
+                    args.add(1 + random.nextInt(5));
+                });
+        batch(jdbcTemplate, "INSERT INTO director_films (film_id, director_id) VALUES (?, ?)", films,
+                (args, i) -> {
+                    args.add(i + 1);
+                    args.add(1 + random.nextInt(directors));
+                });
+        batch(jdbcTemplate, "INSERT INTO genre (film_id, genre_id) VALUES (?, ?)", films * 2,
+                (args, i) -> {
+                    args.add(i / 2 + 1);
+                    args.add(i % 2 == 0 ? 1 + random.nextInt(3) : 4 + random.nextInt(3));
+                });
+        batch(jdbcTemplate, "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", users,
+                (args, i) -> {
+                    args.add("user" + i + "@mail.ru");
+                    args.add("user" + i);
+                    args.add("User " + i);
+                    args.add(Date.valueOf(LocalDate.of(1960 + random.nextInt(45), 1 + random.nextInt(12), 1)));
+                });
+
+        int[][] likes = pairs(random, users, films, Math.min(likesPerUser, films), true);
+        batch(jdbcTemplate, "INSERT INTO likes (user_id, film_id) VALUES (?, ?)", likes.length,
+                (args, i) -> {
+                    args.add(likes[i][0]);
+                    args.add(likes[i][1]);
+                });
+        batch(jdbcTemplate, "INSERT INTO feed (user_id, timestamp, event_type, operation, entity_id) " +
+                        "VALUES (?, ?, 'LIKE', 'ADD', ?)", likes.length,
+                (args, i) -> {
+                    args.add(likes[i][0]);
+                    args.add(1_600_000_000_000L + i);
+                    args.add(likes[i][1]);
+                });
+
+        int[][] friends = pairs(random, users, users, Math.min(friendsPerUser, users - 1), false);
+        batch(jdbcTemplate, "INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", friends.length,
+                (args, i) -> {
+                    args.add(friends[i][0]);
+                    args.add(friends[i][1]);
+                });
+        batch(jdbcTemplate, "INSERT INTO reviews (content, is_positive, user_id, film_id) VALUES (?, ?, ?, ?)",
+                reviews,
+                (args, i) -> {
+                    args.add("review " + i);
+                    args.add(random.nextBoolean());
+                    args.add(1 + random.nextInt(users));
+                    args.add(1 + random.nextInt(films));
+                });
+
+        jdbcTemplate.update("UPDATE films " +
+                "SET like_count = (SELECT COUNT(*) FROM likes WHERE likes.film_id = films.film_id)");
+    }
+
+    public static String title(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static int[][] pairs(Random random, int owners, int targets, int perOwner, boolean skewed) {
+        List<int[]> pairs = new ArrayList<>(owners * perOwner);
+        for (int owner = 1; owner <= owners; owner++) {
+            Set<Integer> chosen = new HashSet<>();
+            while (chosen.size() < perOwner) {
+                double r = random.nextDouble();
+                int target = 1 + (int) (targets * (skewed ? r * r : r));
+                if (skewed || target != owner) {
+                    chosen.add(target);
+                }
+            }
+            for (int target : chosen) {
+                pairs.add(new int[]{owner, target});
+            }
+        }
+        return pairs.toArray(new int[0][]);
+    }
+
+    private static void batch(JdbcTemplate jdbcTemplate, String sql, int rows, RowWriter writer) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            List<Object> args = new ArrayList<>();
+            writer.write(args, i);
+            batch.add(args.toArray());
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    private interface RowWriter {
+        void write(List<Object> args, int row);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CommonFilmsBenchmark {
+
+    private static final String LEGACY_SQL = "SELECT f.film_id, " +
+            "COUNT(l3.film_id) FROM films AS f " +
+            "LEFT JOIN likes AS l1 ON f.film_id = l1.film_id " +
+            "LEFT JOIN users AS u1 ON l1.user_id = u1.user_id " +
+            "LEFT JOIN likes AS l2 ON l1.film_id = l2.film_id " +
+            "LEFT JOIN users AS u2 ON l2.user_id = u2.user_id " +
+            "LEFT JOIN likes AS l3 ON f.film_id = l3.film_id " +
+            "WHERE u1.user_id = ? AND u2.user_id = ? " +
+            "GROUP BY f.film_id " +
+            "ORDER BY COUNT(l3.film_id) DESC, f.film_id";
+
+    @Param({"10000"})
+    private int films;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"20", "100"})
+    private int likesPerUser;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private final LikeIndex likeIndex = new LikeIndex();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkData.createDatabase();
+        jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkData.seed(jdbcTemplate, films, users, likesPerUser, 0, 0);
+        likeIndex.reload(index -> jdbcTemplate.query("SELECT film_id, user_id FROM likes ORDER BY film_id, user_id",
+                rs -> {
+                    index.put(rs.getInt("film_id"), rs.getInt("user_id"));
+                }));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> legacySql() {
+        int userId = nextUser();
+        return jdbcTemplate.query(LEGACY_SQL, (rs, rowNum) -> rs.getInt("film_id"), userId, userId % users + 1);
+    }
+
+    @Benchmark
+    public List<Integer> likeIndex() {
+        int userId = nextUser();
+        return likeIndex.getCommonFilms(userId, userId % users + 1);
+    }
+
+    private int nextUser() {
+        return cursor++ % users + 1;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.service.event.FeedRetention;
+import ru.yandex.practicum.filmorate.storage.event.dao.EventDbStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FeedRetentionBenchmark {
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"200"})
+    private int oldEventsPerUser;
+
+    @Param({"5"})
+    private int recentEventsPerUser;
+
+    @Param({"false", "true"})
+    private boolean archived;
+
+    private EmbeddedDatabase database;
+    private EventDbStorage eventDbStorage;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkData.createDatabase();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkData.seed(jdbcTemplate, 1000, users, oldEventsPerUser, 0, 0);
+        eventDbStorage = new EventDbStorage(jdbcTemplate);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < recentEventsPerUser; i++) {
+            eventDbStorage.createEvents(IntStream.rangeClosed(1, users)
+                    .mapToObj(userId -> Event.builder()
+                            .timestamp(now)
+                            .userId(userId)
+                            .eventType(EventType.FRIEND)
+                            .operation(EventOperation.ADD)
+                            .entityId(userId % users + 1)
+                            .build())
+                    .collect(Collectors.toList()));
+        }
+        if (archived) {
+            FeedRetention retention = new FeedRetention(eventDbStorage, new SimpleMeterRegistry(), false,
+                    Duration.ofDays(90), Duration.ofHours(1), 5000);
+            long start = System.nanoTime();
+            int moved = retention.archive();
+            System.out.printf("Archived %d events in %d ms%n", moved,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Event> getFeed() {
+        return eventDbStorage.getFeed(nextUser());
+    }
+
+    @Benchmark
+    public List<Event> getFeedFirstPage() {
+        return eventDbStorage.getFeedAfter(nextUser(), 0, 50);
+    }
+
+    private int nextUser() {
+        return cursor++ % users + 1;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.service.event.EventService;
+import ru.yandex.practicum.filmorate.service.event.FeedStream;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FeedStreamBenchmark {
+
+    @Param({"2000"})
+    private int subscribers;
+
+    @Param({"100"})
+    private int historyPerUser;
+
+    private ConfigurableApplicationContext context;
+    private EventService eventService;
+    private HttpClient client;
+    private String baseUrl;
+    private final AtomicLong received = new AtomicLong();
+    private final List<CompletableFuture<?>> streams = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = new SpringApplication(FilmorateApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:feed-stream;DB_CLOSE_DELAY=-1",
+                "--server.tomcat.max-connections=" + (subscribers + 1000),
+                "--filmorate.logging.request-summary.sample-rate=0",
+                "--logging.level.root=WARN");
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), 1000, subscribers, historyPerUser, 0, 0);
+        eventService = context.getBean(EventService.class);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        FeedStream feedStream = context.getBean(FeedStream.class);
+        for (int userId = 1; userId <= subscribers; userId++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + userId + "/feed/stream"))
+                    .GET()
+                    .build();
+            streams.add(client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(new EventCounter())));
+        }
+        while (feedStream.getSubscriberCount() < subscribers) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        streams.forEach(stream -> stream.cancel(true));
+        context.close();
+    }
+
+    @Benchmark
+    public long pushRound() throws InterruptedException {
+        long expected = received.get() + subscribers;
+        eventService.createEvents(IntStream.rangeClosed(1, subscribers)
+                .mapToObj(userId -> Event.builder()
+                        .userId(userId)
+                        .eventType(EventType.LIKE)
+                        .operation(EventOperation.ADD)
+                        .entityId(1)
+                        .build())
+                .collect(Collectors.toList()));
+        while (received.get() < expected) {
+            Thread.sleep(1);
+        }
+        return received.get();
+    }
+
+    @Benchmark
+    public int pollRound() {
+        List<CompletableFuture<HttpResponse<Void>>> polls = IntStream.rangeClosed(1, subscribers)
+                .mapToObj(userId -> client.sendAsync(
+                        HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + userId + "/feed")).GET().build(),
+                        HttpResponse.BodyHandlers.discarding()))
+                .collect(Collectors.toList());
+        return polls.stream().mapToInt(poll -> poll.join().statusCode()).sum();
+    }
+
+    private final class EventCounter implements Flow.Subscriber<String> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("id:")) {
+                received.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
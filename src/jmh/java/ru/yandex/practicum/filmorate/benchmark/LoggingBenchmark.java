@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    @Param({"sync", "async"})
+    private String appender;
+
+    @Param({"1000"})
+    private int rows;
+
+    private LoggerContext context;
+    private Logger log;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("filmorate-logging", ".log");
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(file.toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        Appender<ILoggingEvent> target = fileAppender;
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(0);
+            async.setNeverBlock(true);
+            async.addAppender(fileAppender);
+            async.start();
+            target = async;
+        }
+        log = context.getLogger(LoggingBenchmark.class);
+        log.setLevel(ch.qos.logback.classic.Level.INFO);
+        log.setAdditive(false);
+        log.addAppender(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<Film> perRowInfo() {
+        List<Film> films = new ArrayList<>(rows);
+        for (int id = 1; id <= rows; id++) {
+            log.info("DAO: Метод создания объекта фильма из бд с id {}", id);
+            films.add(film(id));
+        }
+        log.info("Ответ отправлен: {}", films);
+        return films;
+    }
+
+    @Benchmark
+    public List<Film> requestSummary() {
+        long start = System.nanoTime();
+        List<Film> films = new ArrayList<>(rows);
+        for (int id = 1; id <= rows; id++) {
+            if (log.isDebugEnabled()) {
+                log.debug("DAO: Метод создания объекта фильма из бд с id {}", id);
+            }
+            films.add(film(id));
+        }
+        log.info("GET /films [/films] status=200 time={}ms queries={} rows={}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 4, films.size());
+        return films;
+    }
+
+    private static Film film(int id) {
+        return Film.builder()
+                .id(id)
+                .name("film " + id)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .mpa(Mpa.builder().id(1).name("G").build())
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RecommendationBenchmark {
+
+    private static final String LEGACY_SQL = "SELECT films.film_id " +
+            "FROM films " +
+            "WHERE films.film_id IN (SELECT DISTINCT film_id " +
+            "FROM likes " +
+            "WHERE user_id IN (SELECT user_id " +
+            "FROM (SELECT user_id, COUNT(*) matches " +
+            "FROM likes " +
+            "WHERE NOT user_id = ? " +
+            "AND film_id IN (SELECT film_id " +
+            "FROM likes " +
+            "WHERE user_id = ?) " +
+            "GROUP BY user_id " +
+            "ORDER BY count(*) DESC ) " +
+            "GROUP BY user_id " +
+            "HAVING matches = MAX(matches)) " +
+            "AND film_id NOT IN (SELECT film_id " +
+            "FROM likes " +
+            "WHERE user_id = ?))";
+
+    @Param({"10000"})
+    private int films;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"20"})
+    private int likesPerUser;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private final LikeIndex likeIndex = new LikeIndex();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkData.createDatabase();
+        jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkData.seed(jdbcTemplate, films, users, likesPerUser, 0, 0);
+        likeIndex.reload(index -> jdbcTemplate.query("SELECT film_id, user_id FROM likes ORDER BY film_id, user_id",
+                rs -> {
+                    index.put(rs.getInt("film_id"), rs.getInt("user_id"));
+                }));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> legacySql() {
+        int userId = nextUser();
+        return jdbcTemplate.queryForList(LEGACY_SQL, Integer.class, userId, userId, userId);
+    }
+
+    @Benchmark
+    public List<Integer> likeIndex() {
+        return likeIndex.recommend(nextUser());
+    }
+
+    @Benchmark
+    public List<Integer> likeIndexCached() {
+        return likeIndex.getRecommendations(nextUser() % 1000 + 1);
+    }
+
+    private int nextUser() {
+        return cursor++ % users + 1;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class RequestThroughputBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"50"})
+    private int tomcatThreads;
+
+    @Param({"10"})
+    private int poolSize;
+
+    @Param({"10000"})
+    private int films;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplication(FilmorateApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:throughput-" + threads + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--server.tomcat.threads.max=" + tomcatThreads,
+                "--filmorate.threads.virtual=" + "virtual".equals(threads),
+                "--filmorate.threads.acquire-timeout=30s",
+                "--filmorate.cache.maximum-size=0",
+                "--logging.level.root=WARN");
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), films, 1000, 20, 20, 1000);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getFilmById() throws IOException, InterruptedException {
+        return get("/films/" + (ThreadLocalRandom.current().nextInt(films) + 1));
+    }
+
+    @Benchmark
+    public int getFriends() throws IOException, InterruptedException {
+        return get("/users/" + (ThreadLocalRandom.current().nextInt(1000) + 1) + "/friends");
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.model.ReviewReaction;
+import ru.yandex.practicum.filmorate.storage.likeReview.dao.LikeReviewDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@OperationsPerInvocation(ReviewReactionsBenchmark.REACTIONS)
+public class ReviewReactionsBenchmark {
+
+    static final int REACTIONS = 1000;
+
+    private static final String LEGACY_SQL = "INSERT INTO like_review_legacy (review_id, user_id, is_positive) " +
+            "VALUES (?, ?, ?)";
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"5000"})
+    private int reviews;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private LikeReviewDbStorage likeReviewStorage;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkData.createDatabase();
+        jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkData.seed(jdbcTemplate, 1000, users, 0, 0, reviews);
+        jdbcTemplate.execute("CREATE TABLE like_review_legacy (review_id INTEGER NOT NULL, " +
+                "user_id INTEGER NOT NULL, is_positive BOOLEAN NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX like_review_legacy_review_id_idx ON like_review_legacy (review_id)");
+        likeReviewStorage = new LikeReviewDbStorage(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public void legacyInserts() {
+        for (ReviewReaction reaction : nextReactions()) {
+            jdbcTemplate.update(LEGACY_SQL, reaction.getReviewId(), reaction.getUserId(), reaction.getIsPositive());
+        }
+    }
+
+    @Benchmark
+    public void singleReactions() {
+        for (ReviewReaction reaction : nextReactions()) {
+            if (reaction.getIsPositive()) {
+                likeReviewStorage.createLike(reaction.getReviewId(), reaction.getUserId());
+            } else {
+                likeReviewStorage.createDislike(reaction.getReviewId(), reaction.getUserId());
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ReviewReaction> batchReactions() {
+        return likeReviewStorage.applyReactions(nextReactions());
+    }
+
+    private List<ReviewReaction> nextReactions() {
+        List<ReviewReaction> reactions = new ArrayList<>(REACTIONS);
+        for (int i = 0; i < REACTIONS; i++) {
+            reactions.add(new ReviewReaction(1 + random.nextInt(reviews), 1 + random.nextInt(users),
+                    random.nextBoolean()));
+        }
+        return reactions;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.SearchField;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ne", "ra", "to", "su", "vi", "da", "re", "po", "li", "an", "el", "or", "us"
+    };
+    private static final Set<SearchField> TITLE = Set.of(SearchField.TITLE);
+    private static final Set<SearchField> TITLE_AND_DIRECTOR = Set.of(SearchField.TITLE, SearchField.DIRECTOR);
+
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"50000"})
+    private int vocabulary;
+
+    @Param({"10000"})
+    private int directors;
+
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private String[] words;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        words = new String[vocabulary];
+        for (int i = 0; i < vocabulary; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int j = 0; j < syllables; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+        searchIndex.reload(index -> {
+            for (int directorId = 1; directorId <= directors; directorId++) {
+                index.putDirector(directorId, word(random) + " " + word(random));
+            }
+            for (int filmId = 1; filmId <= films; filmId++) {
+                StringBuilder title = new StringBuilder(word(random));
+                int length = 1 + random.nextInt(3);
+                for (int j = 0; j < length; j++) {
+                    title.append(' ').append(word(random));
+                }
+                index.putFilm(filmId, title.toString(), List.of(1 + random.nextInt(directors)));
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Integer> exactWord() {
+        return searchIndex.search(nextWord(), TITLE, SearchBenchmark::likes);
+    }
+
+    @Benchmark
+    public List<Integer> prefix() {
+        String word = nextWord();
+        return searchIndex.search(word.substring(0, 4), TITLE, SearchBenchmark::likes);
+    }
+
+    @Benchmark
+    public List<Integer> typo() {
+        String word = nextWord();
+        return searchIndex.search(word.substring(0, 2) + word.charAt(3) + word.charAt(2) + word.substring(4),
+                TITLE, SearchBenchmark::likes);
+    }
+
+    @Benchmark
+    public List<Integer> twoWordsInTitleAndDirector() {
+        return searchIndex.search(nextWord() + " " + nextWord(), TITLE_AND_DIRECTOR, SearchBenchmark::likes);
+    }
+
+    private String nextWord() {
+        return words[cursor++ % words.length];
+    }
+
+    private String word(Random random) {
+        return words[random.nextInt(words.length)];
+    }
+
+    private static int likes(int filmId) {
+        return filmId % 1000;
+    }
+}
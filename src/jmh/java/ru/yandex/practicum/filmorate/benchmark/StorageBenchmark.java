@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
+import ru.yandex.practicum.filmorate.storage.event.dao.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmFetchExecutor;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmHydrator;
+import ru.yandex.practicum.filmorate.storage.genre.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.mpa.dao.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.dao.UserDbStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"1000", "10000"})
+    private int films;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"20"})
+    private int likesPerUser;
+
+    @Param({"20"})
+    private int friendsPerUser;
+
+    @Param({"1000"})
+    private int reviews;
+
+    private EmbeddedDatabase database;
+    private FilmDbStorage filmDbStorage;
+    private FilmDbStorage cachedFilmDbStorage;
+    private FilmDbStorage parallelFilmDbStorage;
+    private FilmFetchExecutor parallelFetch;
+    private UserDbStorage userDbStorage;
+    private EventDbStorage eventDbStorage;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkData.createDatabase();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkData.seed(jdbcTemplate, films, users, likesPerUser, friendsPerUser, reviews);
+
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(jdbcTemplate,
+                new MpaDbStorage(jdbcTemplate), new GenreDbStorage(jdbcTemplate), PrimaryReads.direct());
+        PopularityIndex popularityIndex = new PopularityIndex();
+        LikeIndex likeIndex = new LikeIndex();
+        EntityCache noCache = new EntityCache(0, Duration.ZERO);
+        FilmFetchExecutor sequentialFetch = new FilmFetchExecutor(false, 1, 1, Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+        parallelFetch = new FilmFetchExecutor(true, 3, 64, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        filmDbStorage = new FilmDbStorage(jdbcTemplate,
+                new FilmHydrator(jdbcTemplate, referenceDataCache, sequentialFetch),
+                referenceDataCache, popularityIndex, new FilmSearchIndex(), likeIndex, noCache,
+                PrimaryReads.direct());
+        cachedFilmDbStorage = new FilmDbStorage(jdbcTemplate,
+                new FilmHydrator(jdbcTemplate, referenceDataCache, sequentialFetch),
+                referenceDataCache, popularityIndex, new FilmSearchIndex(), likeIndex,
+                new EntityCache(films, Duration.ofMinutes(10)), PrimaryReads.direct());
+        parallelFilmDbStorage = new FilmDbStorage(jdbcTemplate,
+                new FilmHydrator(jdbcTemplate, referenceDataCache, parallelFetch),
+                referenceDataCache, popularityIndex, new FilmSearchIndex(), likeIndex, noCache,
+                PrimaryReads.direct());
+        userDbStorage = new UserDbStorage(jdbcTemplate, popularityIndex, likeIndex, new FriendIndex(), noCache,
+                PrimaryReads.direct());
+        eventDbStorage = new EventDbStorage(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallelFetch.destroy();
+        database.shutdown();
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return filmDbStorage.getFilmById(nextFilm());
+    }
+
+    @Benchmark
+    public Film getFilmByIdParallel() {
+        return parallelFilmDbStorage.getFilmById(nextFilm());
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsParallel() {
+        return parallelFilmDbStorage.getPopularFilms(10, -1, -1);
+    }
+
+    @Benchmark
+    public Film getFilmByIdCached() {
+        return cachedFilmDbStorage.getFilmById(nextFilm() % 100 + 1);
+    }
+
+    @Benchmark
+    public List<Film> findAllFilms() {
+        return filmDbStorage.findAllFilms();
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmDbStorage.getPopularFilms(10, -1, -1);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsByGenreAndYear() {
+        return filmDbStorage.getPopularFilms(10, 1, 1990);
+    }
+
+    @Benchmark
+    public List<Film> searchByTitle() {
+        return filmDbStorage.searchBy(BenchmarkData.WORDS[cursor++ % BenchmarkData.WORDS.length], "title");
+    }
+
+    @Benchmark
+    public List<Film> getCommonFilms() {
+        int userId = nextUser();
+        return filmDbStorage.getCommonFilms(userId, userId % users + 1);
+    }
+
+    @Benchmark
+    public List<Film> getRecommendedFilms() {
+        return filmDbStorage.getRecommendedFilms(nextUser());
+    }
+
+    @Benchmark
+    public List<User> getCommonsFriends() {
+        int userId = nextUser();
+        return userDbStorage.getCommonsFriends(userId, userId % users + 1);
+    }
+
+    @Benchmark
+    public List<Event> getFeed() {
+        return eventDbStorage.getFeed(nextUser());
+    }
+
+    private int nextFilm() {
+        return cursor++ % films + 1;
+    }
+
+    private int nextUser() {
+        return cursor++ % users + 1;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.review.dao.ReviewBdStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TopReviewsBenchmark {
+
+    private static final String LEGACY_SQL = "SELECT r.*, " +
+            "SUM(CASE WHEN LR.IS_POSITIVE = TRUE THEN 1 WHEN LR.IS_POSITIVE = FALSE THEN -1 ELSE 0 END) AS USE " +
+            "FROM REVIEWS AS r " +
+            "LEFT JOIN LIKE_REVIEW as LR on r.REVIEW_ID = LR.REVIEW_ID ";
+
+    @Param({"1000"})
+    private int films;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"20000"})
+    private int reviews;
+
+    @Param({"10"})
+    private int votesPerReview;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ReviewBdStorage reviewStorage;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkData.createDatabase();
+        jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkData.seed(jdbcTemplate, films, users, 0, 0, reviews);
+        Random random = new Random(42);
+        List<Object[]> votes = new ArrayList<>();
+        for (int reviewId = 1; reviewId <= reviews; reviewId++) {
+            for (int vote = 0; vote < votesPerReview; vote++) {
+                votes.add(new Object[]{reviewId, 1 + random.nextInt(users), random.nextInt(3) > 0});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO like_review (review_id, user_id, is_positive) VALUES (?, ?, ?)",
+                votes);
+        jdbcTemplate.update("UPDATE reviews r SET useful = COALESCE((SELECT SUM(CASE WHEN lr.is_positive " +
+                "THEN 1 ELSE -1 END) FROM like_review lr WHERE lr.review_id = r.review_id), 0)");
+        reviewStorage = new ReviewBdStorage(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> legacyFilmReviews() {
+        return jdbcTemplate.query(LEGACY_SQL + "WHERE FILM_ID = " + nextFilm() +
+                " GROUP BY r.REVIEW_ID ORDER BY USE DESC LIMIT 10", (rs, rowNum) -> rs.getInt("REVIEW_ID"));
+    }
+
+    @Benchmark
+    public List<Review> filmReviews() {
+        return reviewStorage.findAll(nextFilm(), 10);
+    }
+
+    @Benchmark
+    public List<Integer> legacyAllReviews() {
+        return jdbcTemplate.query(LEGACY_SQL + "GROUP BY r.REVIEW_ID ORDER BY USE DESC LIMIT 10",
+                (rs, rowNum) -> rs.getInt("REVIEW_ID"));
+    }
+
+    @Benchmark
+    public List<Review> allReviews() {
+        return reviewStorage.findAll(0, 10);
+    }
+
+    private int nextFilm() {
+        return cursor++ % films + 1;
+    }
+}
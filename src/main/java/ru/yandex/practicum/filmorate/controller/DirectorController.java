@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.service.director.DirectorService;
 
@@ -24,14 +25,20 @@ public class DirectorController {
     }
 
     @GetMapping
-    public List<Director> getDirectors() {
+    public List<Director> getDirectors(WebRequest request) {
         log.info("Пришел /GET запрос на получение всех режиссёров");
+        if (request.checkNotModified(directorService.getDirectorsVersion())) {
+            return null;
+        }
         return directorService.getDirectors();
     }
 
     @GetMapping("/{id}")
-    public Director getDirectorById(@PathVariable int id) {
+    public Director getDirectorById(@PathVariable int id, WebRequest request) {
         log.info("Получен /GET запрос на получение режиссёра с id = {}", id);
+        if (request.checkNotModified(directorService.getDirectorsVersion())) {
+            return null;
+        }
         return directorService.getDirectorById(id);
     }
 
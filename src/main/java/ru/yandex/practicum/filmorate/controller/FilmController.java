@@ -1,33 +1,64 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.export.ExportFormat;
+import ru.yandex.practicum.filmorate.service.export.ExportWriter;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
 import java.util.LinkedHashSet;
 import java.util.List;
 
 @Slf4j
+@Validated
 @RestController
 @RequiredArgsConstructor
 @RequestMapping(value = "/films", produces = "application/json")
 public class FilmController {
 
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
-    public Film getFilm(@PathVariable Integer id) {
+    public Film getFilm(@PathVariable Integer id, WebRequest request) {
         log.info("Получен GET-запрос на получение фильма");
-        return filmService.getFilmById(id);
+        String version = filmService.getFilmVersion(id);
+        Film film = filmService.getFilmById(id);
+        if (request.checkNotModified(version)) {
+            return null;
+        }
+        return film;
     }
 
     @GetMapping()
-    public List<Film> getFilms() {
-        log.info("Поступил запрос на получение списка всех фильмов.");
-        return filmService.findAllFilms();
+    public ResponseEntity<List<Film>> getFilms(@RequestParam(required = false) String after,
+                                               @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Поступил запрос на получение списка всех фильмов.");
+            return ResponseEntity.ok(filmService.findAllFilms());
+        }
+        log.info("Поступил запрос на получение страницы фильмов, limit {}.", limit);
+        return PageResponse.of(filmService.findFilms(after, limit));
+    }
+
+    @GetMapping(params = "stream", produces = {MediaType.APPLICATION_JSON_VALUE, ExportFormat.NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportFilms(@RequestParam String stream) {
+        ExportFormat format = ExportFormat.of(stream);
+        log.info("Поступил запрос на выгрузку всех фильмов в формате {}.", format);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(out -> ExportWriter.<Film>write(objectMapper, format, out, filmService::exportFilms));
     }
 
     @PostMapping
@@ -36,6 +67,12 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    @PostMapping("/batch")
+    public List<Film> createBatch(@RequestBody List<@Valid Film> films) {
+        log.info("Поступил запрос на пакетное добавление {} фильмов.", films.size());
+        return filmService.addFilms(films);
+    }
+
     @PutMapping
     public Film changeFilm(@Valid @RequestBody Film film) {
         log.info("Поступил запрос на изменения фильма.");
@@ -48,6 +85,12 @@ public class FilmController {
         return filmService.like(filmId, userId);
     }
 
+    @PostMapping("/likes:batch")
+    public List<LikeOperation> applyLikes(@RequestBody List<@Valid LikeOperation> operations) {
+        log.info("Поступил запрос на пакетную обработку {} лайков.", operations.size());
+        return filmService.applyLikes(operations);
+    }
+
     @DeleteMapping("/{filmId}/like/{userId}")
     public Film deleteLike(@PathVariable Integer filmId, @PathVariable Integer userId) {
         log.info("Поступил запрос на удаление лайка у фильма.");
@@ -56,26 +99,24 @@ public class FilmController {
 
     @DeleteMapping("/{id}")
     public Film delete(@PathVariable Integer id) {
-        log.info("Поступил запрос на удаление фильма с id: " + id);
+        log.info("Поступил запрос на удаление фильма с id: {}", id);
         return filmService.deleteFilm(id);
     }
 
     @GetMapping("/popular")
     public List<Film> getBestFilmsOfGenreAndYear(
-            @RequestParam(defaultValue = "10") int count,
+            @RequestParam(defaultValue = "10") @Positive int count,
             @RequestParam(defaultValue = "-1") int genreId,
             @RequestParam(defaultValue = "-1") int year) {
-        log.info("Поступил запрос на получение списка популярных фильмов по годам и жанрам.");
-        log.info("count {}, genre {} , year {}", count, genreId, year);
+        log.info("Поступил запрос на получение списка популярных фильмов: count {}, genre {}, year {}.",
+                count, genreId, year);
         return filmService.getBestFilmsOfGenreAndYear(count, genreId, year);
     }
 
     @GetMapping("/director/{directorId}")
     public LinkedHashSet<Film> filmsByDirector(@PathVariable int directorId, @RequestParam String sortBy) {
-        log.info("Поступил /GET запрос на получение списка фильмов режиссера");
-        LinkedHashSet<Film> films = filmService.filmsByDirector(directorId, sortBy);
-        log.info("Ответ отправлен: {}", films);
-        return films;
+        log.info("Поступил /GET запрос на получение списка фильмов режиссера {}", directorId);
+        return filmService.filmsByDirector(directorId, sortBy);
     }
 
     @GetMapping("/common")
@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.genre.GenreService;
 
@@ -20,14 +21,20 @@ public class GenreController {
     private final GenreService genreService;
 
     @GetMapping
-    public List<Genre> findAll() {
+    public List<Genre> findAll(WebRequest request) {
         log.info("Получен GET-запрос на получение списка всех жанров");
+        if (request.checkNotModified(genreService.getReferenceVersion())) {
+            return null;
+        }
         return genreService.findAll();
     }
 
     @GetMapping("/{id}")
-    public Genre getGenre(@PathVariable("id") int genreId) {
+    public Genre getGenre(@PathVariable("id") int genreId, WebRequest request) {
         log.info("Получен GET-запрос на получение жанра по id: {}", genreId);
+        if (request.checkNotModified(genreService.getReferenceVersion())) {
+            return null;
+        }
         return genreService.getGenre(genreId);
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.mpa.MpaService;
 
@@ -20,14 +21,20 @@ public class MpaController {
     private final MpaService mpaService;
 
     @GetMapping
-    public List<Mpa> findAll() {
+    public List<Mpa> findAll(WebRequest request) {
         log.info("Получен запрос на получение списка MPA");
+        if (request.checkNotModified(mpaService.getReferenceVersion())) {
+            return null;
+        }
         return mpaService.findAll();
     }
 
     @GetMapping("/{id}")
-    public Mpa getMpaRating(@PathVariable("id") int mpaId) {
+    public Mpa getMpaRating(@PathVariable("id") int mpaId, WebRequest request) {
         log.info("Получен запрос на получение MPA по id: {}", mpaId);
+        if (request.checkNotModified(mpaService.getReferenceVersion())) {
+            return null;
+        }
         return mpaService.getMpaById(mpaId);
     }
 }
\ No newline at end of file
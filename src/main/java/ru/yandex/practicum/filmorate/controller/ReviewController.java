@@ -1,17 +1,23 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.ReviewReaction;
 import ru.yandex.practicum.filmorate.service.review.ReviewService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
 
 @RestController
 @RequestMapping("/reviews")
 @RequiredArgsConstructor
+@Validated
 public class ReviewController {
 
     private final ReviewService service;
@@ -37,10 +43,15 @@ public class ReviewController {
     }
 
     @GetMapping()
-    public List<Review> findAll(@RequestParam(defaultValue = "0", required = false)
-                                @Positive Integer filmId, @RequestParam(defaultValue = "10", required = false)
-                                @Positive Integer count) {
-        return service.findAll(filmId, count);
+    public ResponseEntity<List<Review>> findAll(@RequestParam(defaultValue = "0", required = false)
+                                                @PositiveOrZero Integer filmId, @RequestParam(defaultValue = "10", required = false)
+                                                @Positive Integer count,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(service.findAll(filmId, count));
+        }
+        return PageResponse.of(service.findAll(filmId, after, limit == null ? count : limit));
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -53,6 +64,11 @@ public class ReviewController {
         service.createDislike(id, userId);
     }
 
+    @PostMapping("/reactions:batch")
+    public List<ReviewReaction> applyReactions(@RequestBody List<@NotNull @Valid ReviewReaction> reactions) {
+        return service.applyReactions(reactions);
+    }
+
     @DeleteMapping("/{id}/like/{userId}")
     public void deleteLike(@PathVariable Integer id, @PathVariable Integer userId) {
         service.deleteLike(id, userId);
@@ -1,11 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.service.export.ExportFormat;
+import ru.yandex.practicum.filmorate.service.export.ExportWriter;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 
 import javax.validation.Valid;
@@ -18,17 +26,37 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{userId}")
-    public User getUserById(@PathVariable Integer userId) {
+    public User getUserById(@PathVariable Integer userId, WebRequest request) {
         log.info("Поступил запрос на получение пользователя по id.");
-        return userService.getUserById(userId);
+        String version = userService.getUserVersion(userId);
+        User user = userService.getUserById(userId);
+        if (request.checkNotModified(version)) {
+            return null;
+        }
+        return user;
     }
 
     @GetMapping
-    public List<User> getUsers() {
-        log.info("Поступил запрос на получение списка пользователей.");
-        return userService.findAllUsers();
+    public ResponseEntity<List<User>> getUsers(@RequestParam(required = false) String after,
+                                               @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Поступил запрос на получение списка пользователей.");
+            return ResponseEntity.ok(userService.findAllUsers());
+        }
+        log.info("Поступил запрос на получение страницы пользователей, limit {}.", limit);
+        return PageResponse.of(userService.findUsers(after, limit));
+    }
+
+    @GetMapping(params = "stream", produces = {MediaType.APPLICATION_JSON_VALUE, ExportFormat.NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam String stream) {
+        ExportFormat format = ExportFormat.of(stream);
+        log.info("Поступил запрос на выгрузку всех пользователей в формате {}.", format);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(out -> ExportWriter.<User>write(objectMapper, format, out, userService::exportUsers));
     }
 
     @PostMapping
@@ -69,13 +97,32 @@ public class UserController {
 
     @DeleteMapping("/{id}")
     public User deleteUser(@PathVariable Integer id) {
-        log.info("Поступил запрос на удаление пользователя c id " + id);
+        log.info("Поступил запрос на удаление пользователя c id {}", id);
         return userService.deleteUser(id);
     }
 
     @GetMapping("/{id}/feed")
-    public List<Event> getFeed(@PathVariable int id) {
-        return userService.getFeed(id);
+    public ResponseEntity<List<Event>> getFeed(@PathVariable int id,
+                                               @RequestParam(required = false) String after,
+                                               @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(userService.getFeed(id));
+        }
+        return PageResponse.of(userService.getFeed(id, after, limit));
+    }
+
+    @GetMapping("/{id}/feed/archive")
+    public ResponseEntity<List<Event>> getArchivedFeed(@PathVariable int id,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(required = false) Integer limit) {
+        return PageResponse.of(userService.getArchivedFeed(id, after, limit));
+    }
+
+    @GetMapping("/{id}/feed/stream")
+    public SseEmitter streamFeed(@PathVariable int id,
+                                 @RequestHeader(value = "Last-Event-ID", required = false) Integer lastEventId) {
+        log.info("Поступил запрос на подписку на ленту событий пользователя {}.", id);
+        return userService.streamFeed(id, lastEventId);
     }
 
     @GetMapping("/{id}/recommendations")
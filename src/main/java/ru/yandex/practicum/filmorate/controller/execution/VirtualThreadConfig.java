@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.controller.execution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "filmorate.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadCustomizer() {
+        Optional<ExecutorService> executor = newVirtualThreadPerTaskExecutor();
+        if (executor.isEmpty()) {
+            log.warn("Виртуальные потоки недоступны в Java {}, запросы обслуживаются пулом Tomcat.",
+                    Runtime.version().feature());
+            return protocolHandler -> {
+            };
+        }
+        log.info("Запросы обслуживаются виртуальными потоками.");
+        return protocolHandler -> protocolHandler.setExecutor(executor.get());
+    }
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(
+            @Value("${filmorate.threads.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${filmorate.films.parallel-fetch.enabled:false}") boolean parallelFetch,
+            @Value("${filmorate.films.parallel-fetch.threads:4}") int fetchThreads,
+            @Value("${filmorate.threads.acquire-timeout:2s}") Duration acquireTimeout,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        int limit = maxConcurrentRequests > 0
+                ? maxConcurrentRequests
+                : defaultConcurrentRequests(poolSize, parallelFetch, fetchThreads);
+        log.info("Одновременно обрабатывается не более {} запросов.", limit);
+        return new ConcurrencyLimitFilter(limit, acquireTimeout, objectMapper, meterRegistry);
+    }
+
+    static int defaultConcurrentRequests(int poolSize, boolean parallelFetch, int fetchThreads) {
+        if (!parallelFetch) {
+            return poolSize;
+        }
+        return Math.max(1, poolSize - fetchThreads);
+    }
+
+    private static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -12,7 +12,7 @@ import java.time.LocalDate;
 import java.util.Set;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class Film {
 
     private Integer id;
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class LikeOperation {
+
+    @NotNull
+    @Positive
+    private Integer filmId;
+    @NotNull
+    @Positive
+    private Integer userId;
+    @NotNull
+    private EventOperation op;
+}
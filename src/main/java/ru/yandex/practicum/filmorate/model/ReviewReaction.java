@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class ReviewReaction {
+
+    @NotNull
+    @Positive
+    private Integer reviewId;
+    @NotNull
+    @Positive
+    private Integer userId;
+    private Boolean isPositive;
+}
@@ -9,7 +9,7 @@ import java.util.Set;
 
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class User {
 
     private Integer id;
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.model.page;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+public final class Cursor {
+
+    private static final String VERSION = "v1:";
+
+    private Cursor() {
+    }
+
+    public static String encode(int... keys) {
+        String value = VERSION + Arrays.stream(keys)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int[] decode(String cursor, int size) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(VERSION)) {
+                throw new ValidationException("Некорректный курсор.");
+            }
+            int[] keys = Arrays.stream(value.substring(VERSION.length()).split(","))
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+            if (keys.length != size) {
+                throw new ValidationException("Некорректный курсор.");
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор.");
+        }
+    }
+
+    public static int checkLimit(Integer limit) {
+        if (limit == null) {
+            return Page.DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > Page.MAX_LIMIT) {
+            throw new ValidationException(String.format("Параметр limit должен быть от 1 до %d.", Page.MAX_LIMIT));
+        }
+        return limit;
+    }
+}
@@ -3,7 +3,10 @@ package ru.yandex.practicum.filmorate.service.director;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 
 import java.util.List;
@@ -14,17 +17,25 @@ import java.util.List;
 public class DirectorService {
 
     private final DirectorStorage directorStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityCache entityCache;
 
     public Director addDirector(Director director) {
         return directorStorage.addDirector(director);
     }
 
+    @Transactional(readOnly = true)
     public List<Director> getDirectors() {
         return directorStorage.getDirectors();
     }
 
+    @Transactional(readOnly = true)
     public Director getDirectorById(int id) {
-        return directorStorage.getDirectorById(id);
+        return referenceDataCache.getDirector(id);
+    }
+
+    public String getDirectorsVersion() {
+        return entityCache.getDirectorsVersion();
     }
 
     public void updateDirector(Director director) {
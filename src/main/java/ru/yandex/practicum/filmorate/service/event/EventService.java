@@ -2,24 +2,50 @@ package ru.yandex.practicum.filmorate.service.event;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.yandex.practicum.filmorate.model.feed.Event;
 import ru.yandex.practicum.filmorate.model.feed.EventOperation;
 import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.model.page.Cursor;
+import ru.yandex.practicum.filmorate.model.page.Page;
 import ru.yandex.practicum.filmorate.storage.event.EventStorage;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class EventService {
 
     private final EventStorage eventDbStorage;
+    private final FeedWriter feedWriter;
+    private final FeedStream feedStream;
 
     public List<Event> getFeed(int userId) {
+        feedWriter.awaitFlushed(userId);
         return eventDbStorage.getFeed(userId);
     }
 
+    public Page<Event> getFeed(int userId, String after, Integer limit) {
+        int pageSize = Cursor.checkLimit(limit);
+        int afterId = after == null ? 0 : Cursor.decode(after, 1)[0];
+        feedWriter.awaitFlushed(userId);
+        return Page.of(eventDbStorage.getFeedAfter(userId, afterId, pageSize + 1), pageSize,
+                event -> Cursor.encode(event.getEventId()));
+    }
+
+    public Page<Event> getArchivedFeed(int userId, String after, Integer limit) {
+        int pageSize = Cursor.checkLimit(limit);
+        int afterId = after == null ? 0 : Cursor.decode(after, 1)[0];
+        return Page.of(eventDbStorage.getArchivedFeedAfter(userId, afterId, pageSize + 1), pageSize,
+                event -> Cursor.encode(event.getEventId()));
+    }
+
+    public SseEmitter streamFeed(int userId, Integer lastEventId) {
+        return feedStream.subscribe(userId, lastEventId);
+    }
+
     public void createEvent(int userId, EventType eventType, EventOperation eventOperation, int entityId) {
         Event event = Event.builder()
                 .timestamp(Instant.now().toEpochMilli())
@@ -28,6 +54,16 @@ public class EventService {
                 .operation(eventOperation)
                 .entityId(entityId)
                 .build();
-        eventDbStorage.createEvent(event);
+        feedWriter.enqueue(event);
+    }
+
+    public void createEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long timestamp = Instant.now().toEpochMilli();
+        feedWriter.enqueueAll(events.stream()
+                .map(event -> event.toBuilder().timestamp(timestamp).build())
+                .collect(Collectors.toList()));
     }
 }
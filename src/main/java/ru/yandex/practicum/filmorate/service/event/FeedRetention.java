@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class FeedRetention implements SmartLifecycle {
+
+    private final EventStorage eventDbStorage;
+    private final boolean enabled;
+    private final Duration window;
+    private final Duration interval;
+    private final int batchSize;
+    private final Counter archivedCounter;
+    private final Counter compactedCounter;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public FeedRetention(EventStorage eventDbStorage,
+                         MeterRegistry meterRegistry,
+                         @Value("${filmorate.feed.retention.enabled:false}") boolean enabled,
+                         @Value("${filmorate.feed.retention.window:90d}") Duration window,
+                         @Value("${filmorate.feed.retention.interval:1h}") Duration interval,
+                         @Value("${filmorate.feed.retention.batch-size:5000}") int batchSize) {
+        this.eventDbStorage = eventDbStorage;
+        this.enabled = enabled;
+        this.window = window;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.archivedCounter = Counter.builder("filmorate.feed.archived")
+                .description("События ленты, перенесённые в архив")
+                .register(meterRegistry);
+        this.compactedCounter = Counter.builder("filmorate.feed.compacted")
+                .description("События ленты, схлопнутые при архивации")
+                .register(meterRegistry);
+    }
+
+    public int archive() {
+        return archiveBefore(Instant.now().minus(window).toEpochMilli());
+    }
+
+    public int archiveBefore(long timestamp) {
+        int archived = 0;
+        int compacted = 0;
+        List<Event> batch;
+        do {
+            batch = eventDbStorage.getEventsBefore(timestamp, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Event> kept = compact(batch);
+            eventDbStorage.archiveEvents(kept, batch.stream().map(Event::getEventId).collect(Collectors.toList()));
+            archived += kept.size();
+            compacted += batch.size() - kept.size();
+        } while (batch.size() == batchSize);
+        archivedCounter.increment(archived);
+        compactedCounter.increment(compacted);
+        if (archived + compacted > 0) {
+            log.info("Архивировано событий ленты: {}, схлопнуто: {}.", archived, compacted);
+        }
+        return archived + compacted;
+    }
+
+    static List<Event> compact(List<Event> events) {
+        Map<Integer, Event> kept = new LinkedHashMap<>();
+        Map<List<Object>, Integer> openAdds = new HashMap<>();
+        for (Event event : events) {
+            List<Object> key = List.of(event.getUserId(), event.getEventType(), event.getEntityId());
+            if (event.getOperation() == EventOperation.REMOVE) {
+                Integer addId = openAdds.remove(key);
+                if (addId != null) {
+                    kept.remove(addId);
+                    continue;
+                }
+            } else if (event.getOperation() == EventOperation.ADD) {
+                openAdds.put(key, event.getEventId());
+            } else {
+                openAdds.remove(key);
+            }
+            kept.put(event.getEventId(), event);
+        }
+        return new ArrayList<>(kept.values());
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "feed-retention");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::runScheduled, interval.toMillis(), interval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            log.info("Архивация ленты событий старше {} запускается каждые {}.", window, interval);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runScheduled() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            log.error("Не удалось архивировать ленту событий.", e);
+        }
+    }
+}
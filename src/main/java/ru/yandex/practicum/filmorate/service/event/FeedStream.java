@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class FeedStream implements SmartLifecycle {
+
+    private static final int PHASE = Integer.MAX_VALUE;
+    private static final int REPLAY_PAGE = 500;
+
+    private final EventStorage eventDbStorage;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long heartbeatMs;
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeat;
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter dropped;
+    private volatile boolean running;
+
+    public FeedStream(EventStorage eventDbStorage,
+                      MeterRegistry meterRegistry,
+                      @Value("${filmorate.feed.stream.buffer-size:256}") int bufferSize,
+                      @Value("${filmorate.feed.stream.threads:4}") int threads,
+                      @Value("${filmorate.feed.stream.timeout:30m}") Duration timeout,
+                      @Value("${filmorate.feed.stream.heartbeat:15s}") Duration heartbeatInterval) {
+        this.eventDbStorage = eventDbStorage;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeout.toMillis();
+        this.heartbeatMs = heartbeatInterval.toMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "feed-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "feed-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("filmorate.feed.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Число открытых потоков ленты событий")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("filmorate.feed.stream.dropped")
+                .description("Потоки ленты, закрытые из-за переполнения буфера подписчика")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(int userId, Integer lastEventId) {
+        return subscribe(userId, lastEventId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(int userId, Integer lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter, new ArrayBlockingQueue<>(bufferSize),
+                lastEventId != null);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        if (lastEventId != null) {
+            execute(subscriber, () -> replay(subscriber, lastEventId));
+        }
+        return emitter;
+    }
+
+    public void publish(List<Event> events) {
+        for (Event event : events) {
+            Set<Subscriber> userSubscribers = subscribers.get(event.getUserId());
+            if (userSubscribers == null) {
+                continue;
+            }
+            for (Subscriber subscriber : userSubscribers) {
+                if (subscriber.buffer.offer(event)) {
+                    schedule(subscriber);
+                } else {
+                    dropped.increment();
+                    log.warn("Подписчик ленты пользователя {} не успевает читать события, поток закрыт.",
+                            subscriber.userId);
+                    close(subscriber);
+                }
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void start() {
+        heartbeat.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> {
+            if (remove(subscriber)) {
+                subscriber.emitter.complete();
+            }
+        }));
+        sender.shutdown();
+        log.info("Потоки ленты событий закрыты перед остановкой.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void replay(Subscriber subscriber, int lastEventId) {
+        try {
+            int after = lastEventId;
+            List<Event> page;
+            do {
+                page = eventDbStorage.getFeedAfter(subscriber.userId, after, REPLAY_PAGE);
+                for (Event event : page) {
+                    if (!send(subscriber, event)) {
+                        return;
+                    }
+                    after = event.getEventId();
+                }
+            } while (page.size() == REPLAY_PAGE && !subscriber.closed.get());
+        } catch (RuntimeException e) {
+            log.error("Не удалось восстановить ленту пользователя {} после события {}.",
+                    subscriber.userId, lastEventId, e);
+            close(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.closed.get() && subscriber.scheduled.compareAndSet(false, true)) {
+            execute(subscriber, () -> drain(subscriber));
+        }
+    }
+
+    private void execute(Subscriber subscriber, Runnable task) {
+        try {
+            sender.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    subscriber.scheduled.set(false);
+                }
+                if (!subscriber.closed.get() && (!subscriber.buffer.isEmpty() || subscriber.heartbeatDue)) {
+                    schedule(subscriber);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            close(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        if (subscriber.heartbeatDue) {
+            subscriber.heartbeatDue = false;
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                remove(subscriber);
+                return;
+            }
+        }
+        Event event;
+        while (!subscriber.closed.get() && (event = subscriber.buffer.poll()) != null) {
+            if (event.getEventId() > subscriber.lastSentId && !send(subscriber, event)) {
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, Event event) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getEventId()))
+                    .name("feed")
+                    .data(event, MediaType.APPLICATION_JSON));
+            subscriber.lastSentId = event.getEventId();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            remove(subscriber);
+            return false;
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }));
+    }
+
+    private void close(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            try {
+                sender.execute(subscriber.emitter::complete);
+            } catch (RejectedExecutionException e) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+        subscriber.buffer.clear();
+        subscriberCount.decrementAndGet();
+        return true;
+    }
+
+    private static final class Subscriber {
+        private final int userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> buffer;
+        private final AtomicBoolean scheduled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        private volatile int lastSentId;
+
+        private Subscriber(int userId, SseEmitter emitter, BlockingQueue<Event> buffer, boolean replaying) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+            this.scheduled = new AtomicBoolean(replaying);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class FeedWriter implements SmartLifecycle {
+
+    private static final int PHASE = Integer.MAX_VALUE - 2048;
+    private static final long AWAIT_TIMEOUT_MS = 5_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+
+    private final EventStorage eventDbStorage;
+    private final MeterRegistry meterRegistry;
+    private final FeedStream feedStream;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    private final Object enqueueLock = new Object();
+    private final Object flushLock = new Object();
+    private final Map<Integer, Long> pendingByUser = new ConcurrentHashMap<>();
+    private final List<Pending> retry = new ArrayList<>();
+    private final Counter droppedCounter;
+    private BlockingQueue<Pending> queue;
+    private Timer flushTimer;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean flushRequested;
+    private long enqueued;
+    private long flushed;
+    private long attempted;
+
+    public FeedWriter(EventStorage eventDbStorage,
+                      MeterRegistry meterRegistry,
+                      FeedStream feedStream,
+                      @Value("${filmorate.feed.queue-capacity:10000}") int queueCapacity,
+                      @Value("${filmorate.feed.batch-size:500}") int batchSize,
+                      @Value("${filmorate.feed.flush-interval-ms:20}") long flushIntervalMs,
+                      @Value("${filmorate.feed.max-attempts:5}") int maxAttempts,
+                      @Value("${filmorate.feed.retry-backoff-ms:100}") long retryBackoffMs) {
+        this.eventDbStorage = eventDbStorage;
+        this.meterRegistry = meterRegistry;
+        this.feedStream = feedStream;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.droppedCounter = Counter.builder("filmorate.feed.dropped")
+                .description("События ленты, отброшенные после исчерпания попыток записи")
+                .register(meterRegistry);
+    }
+
+    public void enqueue(Event event) {
+        enqueueAll(List.of(event));
+    }
+
+    public void enqueueAll(List<Event> events) {
+        int queued = 0;
+        synchronized (enqueueLock) {
+            if (running) {
+                try {
+                    for (Event event : events) {
+                        long sequence = enqueued + 1;
+                        pendingByUser.put(event.getUserId(), sequence);
+                        queue.put(new Pending(sequence, event));
+                        enqueued = sequence;
+                        queued++;
+                    }
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    pendingByUser.remove(events.get(queued).getUserId(), enqueued + 1);
+                }
+            }
+        }
+        feedStream.publish(eventDbStorage.createEvents(events.subList(queued, events.size())));
+    }
+
+    public boolean awaitFlushed(int userId) {
+        Long sequence = pendingByUser.get(userId);
+        if (sequence == null) {
+            return true;
+        }
+        flushRequested = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AWAIT_TIMEOUT_MS);
+        synchronized (flushLock) {
+            while (flushed < sequence) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    log.warn("Не дождались записи событий ленты пользователя {}.", userId);
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(flushLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        flushTimer = Timer.builder("filmorate.feed.flush")
+                .description("Время пакетной записи событий ленты")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.feed.queue.depth", queue, BlockingQueue::size)
+                .description("Число событий ленты, ожидающих записи")
+                .register(meterRegistry);
+        running = true;
+        writer = new Thread(this::run, "feed-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Запись ленты событий запущена: пакет {}, интервал {} мс.", batchSize, flushIntervalMs);
+    }
+
+    @Override
+    public void stop() {
+        synchronized (enqueueLock) {
+            running = false;
+        }
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Очередь ленты событий не записана полностью: осталось {} событий.", queue.size());
+        } else {
+            log.info("Очередь ленты событий записана перед остановкой.");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !retry.isEmpty()) {
+            try {
+                if (!retry.isEmpty()) {
+                    Thread.sleep(retryBackoffMs);
+                }
+                Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null && retry.isEmpty()) {
+                    continue;
+                }
+                if (first != null) {
+                    batch.add(first);
+                }
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || flushRequested || !running) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                log.warn("Поток записи ленты событий прерван.");
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        boolean retried = !retry.isEmpty();
+        batch.addAll(0, retry);
+        retry.clear();
+        if (batch.isEmpty()) {
+            return;
+        }
+        flushRequested = false;
+        attempted = Math.max(attempted, batch.get(batch.size() - 1).sequence);
+        long start = System.nanoTime();
+        for (Pending pending : write(batch)) {
+            if (++pending.attempts < maxAttempts) {
+                retry.add(pending);
+            } else {
+                droppedCounter.increment();
+                log.error("Событие ленты не записано за {} попыток и отброшено: {}", maxAttempts, pending.event);
+            }
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        long written = retry.isEmpty() ? attempted : retry.get(0).sequence - 1;
+        if (retried) {
+            pendingByUser.values().removeIf(sequence -> sequence <= written);
+        } else {
+            batch.stream()
+                    .filter(pending -> pending.sequence <= written)
+                    .forEach(pending -> pendingByUser.remove(pending.event.getUserId(), pending.sequence));
+        }
+        synchronized (flushLock) {
+            flushed = written;
+            flushLock.notifyAll();
+        }
+    }
+
+    private List<Pending> write(List<Pending> batch) {
+        try {
+            feedStream.publish(eventDbStorage.createEvents(batch.stream()
+                    .map(pending -> pending.event)
+                    .collect(Collectors.toList())));
+            return List.of();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать пакет из {} событий ленты, записываем по одному.", batch.size(), e);
+        }
+        List<Pending> failed = new ArrayList<>();
+        for (Pending pending : batch) {
+            try {
+                feedStream.publish(eventDbStorage.createEvents(List.of(pending.event)));
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать событие ленты {}, повторим позже.", pending.event, e);
+                failed.add(pending);
+            }
+        }
+        return failed;
+    }
+
+    private static final class Pending {
+        private final long sequence;
+        private final Event event;
+        private int attempts;
+
+        private Pending(long sequence, Event event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+}
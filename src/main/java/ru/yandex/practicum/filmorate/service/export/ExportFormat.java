@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.service.export;
+
+import org.springframework.http.MediaType;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+public enum ExportFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    NDJSON(MediaType.parseMediaType(ExportFormat.NDJSON_VALUE));
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private final MediaType mediaType;
+
+    ExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat of(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new ValidationException("Неизвестный формат выгрузки: " + value);
+    }
+}
@@ -2,15 +2,27 @@ package ru.yandex.practicum.filmorate.service.film;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.feed.Event;
 import ru.yandex.practicum.filmorate.model.feed.EventOperation;
 import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.model.page.Cursor;
+import ru.yandex.practicum.filmorate.model.page.Page;
 import ru.yandex.practicum.filmorate.service.event.EventService;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -19,47 +31,119 @@ public class FilmService {
 
     private final FilmStorage filmStorage;
     private final EventService eventService;
+    private final EntityCache entityCache;
 
+    @Value("${filmorate.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${filmorate.films.batch-max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${filmorate.likes.batch-max-size:10000}")
+    private int maxLikesBatchSize;
+
+    @Transactional(readOnly = true)
     public Film getFilmById(Integer filmId) {
         return filmStorage.getFilmById(filmId);
     }
 
+    public String getFilmVersion(Integer filmId) {
+        return entityCache.getFilmVersion(filmId);
+    }
+
+    @Transactional(readOnly = true)
     public List<Film> findAllFilms() {
         return filmStorage.findAllFilms();
     }
 
+    @Transactional(readOnly = true)
+    public Page<Film> findFilms(String after, Integer limit) {
+        int pageSize = Cursor.checkLimit(limit);
+        int afterId = after == null ? 0 : Cursor.decode(after, 1)[0];
+        return Page.of(filmStorage.findFilmsAfter(afterId, pageSize + 1), pageSize,
+                film -> Cursor.encode(film.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public void exportFilms(Consumer<Film> consumer) {
+        filmStorage.exportFilms(exportFetchSize, consumer);
+    }
+
     public Film addFilm(Film film) {
         return filmStorage.addFilm(film);
     }
 
+    public List<Film> addFilms(List<Film> films) {
+        if (films.size() > maxBatchSize) {
+            throw new ValidationException("Слишком много фильмов в пакете: " + films.size() + ", максимум " + maxBatchSize);
+        }
+        return filmStorage.addFilms(films);
+    }
+
     public Film updateFilm(Film film) {
         return filmStorage.updateFilm(film);
     }
 
     public Film like(Integer filmId, Integer userId) {
-        Film film = filmStorage.like(filmId, userId);
-        eventService.createEvent(userId, EventType.LIKE, EventOperation.ADD, filmId);
-        return film;
+        if (filmStorage.like(filmId, userId)) {
+            eventService.createEvent(userId, EventType.LIKE, EventOperation.ADD, filmId);
+        }
+        return filmStorage.getFilmById(filmId);
     }
 
     public Film deleteLike(Integer filmId, Integer userId) {
-        Film film = filmStorage.deleteLike(filmId, userId);
-        eventService.createEvent(userId, EventType.LIKE, EventOperation.REMOVE, filmId);
-        return film;
+        if (filmStorage.deleteLike(filmId, userId)) {
+            eventService.createEvent(userId, EventType.LIKE, EventOperation.REMOVE, filmId);
+        }
+        return filmStorage.getFilmById(filmId);
+    }
+
+    public List<LikeOperation> applyLikes(List<LikeOperation> operations) {
+        if (operations.size() > maxLikesBatchSize) {
+            throw new ValidationException("Слишком много лайков в пакете: " + operations.size()
+                    + ", максимум " + maxLikesBatchSize);
+        }
+        if (operations.stream().anyMatch(operation -> operation.getOp() == EventOperation.UPDATE)) {
+            throw new ValidationException("Для лайков допустимы только операции ADD и REMOVE.");
+        }
+        List<LikeOperation> applied = filmStorage.applyLikes(operations);
+        eventService.createEvents(applied.stream()
+                .map(operation -> Event.builder()
+                        .userId(operation.getUserId())
+                        .eventType(EventType.LIKE)
+                        .operation(operation.getOp())
+                        .entityId(operation.getFilmId())
+                        .build())
+                .collect(Collectors.toList()));
+        return applied;
     }
 
+    @Transactional(readOnly = true)
     public List<Film> getBestFilmsOfGenreAndYear(int count, int genre, int year) {
         return filmStorage.getPopularFilms(count, genre, year);
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildLikeCounts() {
+        filmStorage.rebuildLikeCounts();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        filmStorage.rebuildSearchIndex();
+    }
+
+    @Transactional(readOnly = true)
     public LinkedHashSet<Film> filmsByDirector(int directorId, String sortBy) {
         return filmStorage.filmsByDirector(directorId, sortBy);
     }
 
+    @Transactional(readOnly = true)
     public List<Film> getCommonFilms(int userId, int friendId) {
         return filmStorage.getCommonFilms(userId, friendId);
     }
 
+    @Transactional(readOnly = true)
     public List<Film> getSearchResults(String query, String by) {
         return filmStorage.searchBy(query, by);
     }
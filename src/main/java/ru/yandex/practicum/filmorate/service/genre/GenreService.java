@@ -3,8 +3,10 @@ package ru.yandex.practicum.filmorate.service.genre;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 
 import java.util.List;
 
@@ -13,13 +15,20 @@ import java.util.List;
 @RequiredArgsConstructor
 public class GenreService {
 
-    private final GenreStorage genreDbStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityCache entityCache;
 
+    @Transactional(readOnly = true)
     public Genre getGenre(int genreId) {
-        return genreDbStorage.getGenreForId(genreId);
+        return referenceDataCache.getGenre(genreId);
     }
 
+    @Transactional(readOnly = true)
     public List<Genre> findAll() {
-        return genreDbStorage.findAll();
+        return referenceDataCache.findAllGenres();
+    }
+
+    public String getReferenceVersion() {
+        return entityCache.getReferenceVersion();
     }
 }
\ No newline at end of file
@@ -3,8 +3,10 @@ package ru.yandex.practicum.filmorate.service.mpa;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 
 import java.util.List;
 
@@ -13,13 +15,20 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MpaService {
 
-    private final MpaStorage mpaDbStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityCache entityCache;
 
+    @Transactional(readOnly = true)
     public List<Mpa> findAll() {
-        return mpaDbStorage.findAll();
+        return referenceDataCache.findAllMpa();
     }
 
+    @Transactional(readOnly = true)
     public Mpa getMpaById(int mpaId) {
-        return mpaDbStorage.getMpaById(mpaId);
+        return referenceDataCache.getMpa(mpaId);
+    }
+
+    public String getReferenceVersion() {
+        return entityCache.getReferenceVersion();
     }
 }
\ No newline at end of file
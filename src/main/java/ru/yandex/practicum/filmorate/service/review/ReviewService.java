@@ -1,11 +1,17 @@
 package ru.yandex.practicum.filmorate.service.review;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.ReviewReaction;
 import ru.yandex.practicum.filmorate.model.feed.EventOperation;
 import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.model.page.Cursor;
+import ru.yandex.practicum.filmorate.model.page.Page;
 import ru.yandex.practicum.filmorate.service.event.EventService;
 import ru.yandex.practicum.filmorate.storage.likeReview.LikeReviewStorage;
 import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
@@ -20,6 +26,9 @@ public class ReviewService {
     private final LikeReviewStorage likeReviewStorage;
     private final EventService eventService;
 
+    @Value("${filmorate.reviews.reactions-batch-max-size:10000}")
+    private int maxReactionsBatchSize;
+
     public Review create(Review review) {
         Review reviewCreated = reviewStorage.create(review);
         eventService.createEvent(reviewCreated.getUserId(), EventType.REVIEW, EventOperation.ADD, reviewCreated.getReviewId());
@@ -38,14 +47,30 @@ public class ReviewService {
         eventService.createEvent(review.getUserId(), EventType.REVIEW, EventOperation.REMOVE, review.getReviewId());
     }
 
+    @Transactional(readOnly = true)
     public Review findById(Integer id) {
         return reviewStorage.findById(id).orElseThrow(() -> new NotFoundException("Отзыв не найден."));
     }
 
+    @Transactional(readOnly = true)
     public List<Review> findAll(Integer filmId, Integer count) {
         return reviewStorage.findAll(filmId, count);
     }
 
+    @Transactional(readOnly = true)
+    public Page<Review> findAll(Integer filmId, String after, Integer limit) {
+        int pageSize = Cursor.checkLimit(limit);
+        Integer afterUseful = null;
+        int afterId = 0;
+        if (after != null) {
+            int[] keys = Cursor.decode(after, 2);
+            afterUseful = keys[0];
+            afterId = keys[1];
+        }
+        return Page.of(reviewStorage.findAllAfter(filmId, afterUseful, afterId, pageSize + 1), pageSize,
+                review -> Cursor.encode(review.getUseful(), review.getReviewId()));
+    }
+
     public void createLike(Integer id, Integer userId) {
         likeReviewStorage.createLike(id, userId);
     }
@@ -61,4 +86,15 @@ public class ReviewService {
     public void deleteDislike(Integer id, Integer userId) {
         likeReviewStorage.deleteDislike(id, userId);
     }
-}
\ No newline at end of file
+
+    public List<ReviewReaction> applyReactions(List<ReviewReaction> reactions) {
+        if (reactions.size() > maxReactionsBatchSize) {
+            throw new ValidationException("Слишком много реакций в пакете: " + reactions.size()
+                    + ", максимум " + maxReactionsBatchSize);
+        }
+        if (reactions.stream().anyMatch(reaction -> reaction.getReviewId() == null || reaction.getUserId() == null)) {
+            throw new ValidationException("У реакции должны быть указаны reviewId и userId.");
+        }
+        return likeReviewStorage.applyReactions(reactions);
+    }
+}
@@ -2,17 +2,26 @@ package ru.yandex.practicum.filmorate.service.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.feed.Event;
 import ru.yandex.practicum.filmorate.model.feed.EventOperation;
 import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.model.page.Cursor;
+import ru.yandex.practicum.filmorate.model.page.Page;
 import ru.yandex.practicum.filmorate.service.event.EventService;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -22,15 +31,38 @@ public class UserService {
     private final UserStorage userStorage;
     private final EventService eventService;
     private final FilmStorage filmStorage;
+    private final EntityCache entityCache;
 
+    @Value("${filmorate.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Transactional(readOnly = true)
     public User getUserById(Integer userId) {
         return userStorage.getUserById(userId);
     }
 
+    public String getUserVersion(Integer userId) {
+        return entityCache.getUserVersion(userId);
+    }
+
+    @Transactional(readOnly = true)
     public List<User> findAllUsers() {
         return userStorage.findAllUsers();
     }
 
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<User> consumer) {
+        userStorage.exportUsers(exportFetchSize, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<User> findUsers(String after, Integer limit) {
+        int pageSize = Cursor.checkLimit(limit);
+        int afterId = after == null ? 0 : Cursor.decode(after, 1)[0];
+        return Page.of(userStorage.findUsersAfter(afterId, pageSize + 1), pageSize,
+                user -> Cursor.encode(user.getId()));
+    }
+
     public User addUser(User user) {
         return userStorage.addUser(user);
     }
@@ -51,19 +83,43 @@ public class UserService {
         return userStorage.getUserById(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getUserFriends(Integer userId) {
         return userStorage.getFriendsByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getCommonsFriends(Integer userId, Integer otherUserId) {
         return userStorage.getCommonsFriends(userId, otherUserId);
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildFriendIndex() {
+        userStorage.rebuildFriendIndex();
+    }
+
     public List<Event> getFeed(Integer userId) {
         getUserById(userId);
         return eventService.getFeed(userId);
     }
 
+    public Page<Event> getFeed(Integer userId, String after, Integer limit) {
+        getUserById(userId);
+        return eventService.getFeed(userId, after, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Event> getArchivedFeed(Integer userId, String after, Integer limit) {
+        getUserById(userId);
+        return eventService.getArchivedFeed(userId, after, limit);
+    }
+
+    public SseEmitter streamFeed(Integer userId, Integer lastEventId) {
+        getUserById(userId);
+        return eventService.streamFeed(userId, lastEventId);
+    }
+
+    @Transactional(readOnly = true)
     public List<Film> getFilmRecommendations(Integer id) {
         getUserById(id);
         return filmStorage.getRecommendedFilms(id);
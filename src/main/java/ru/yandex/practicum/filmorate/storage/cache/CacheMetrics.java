@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics implements MeterBinder {
+
+    private final EntityCache entityCache;
+    private final ReferenceDataCache referenceDataCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String name : entityCache.stats().keySet()) {
+            gets(registry, name, "hit", entityCache, cache -> cache.stats().get(name).hitCount());
+            gets(registry, name, "miss", entityCache, cache -> cache.stats().get(name).missCount());
+        }
+        gets(registry, "reference", "hit", referenceDataCache, ReferenceDataCache::getHitCount);
+        gets(registry, "reference", "miss", referenceDataCache, ReferenceDataCache::getMissCount);
+    }
+
+    private static <T> void gets(MeterRegistry registry, String cache, String result, T source,
+                                 ToDoubleFunction<T> count) {
+        FunctionCounter.builder("filmorate.cache.gets", source, count)
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+}
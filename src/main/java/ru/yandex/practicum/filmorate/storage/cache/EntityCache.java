@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Component
+public class EntityCache {
+
+    private final Cache<Integer, Film> films;
+    private final Cache<Integer, User> users;
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Integer, Long> filmVersions = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> userVersions = new ConcurrentHashMap<>();
+    private volatile long directorsVersion;
+
+    public EntityCache(@Value("${filmorate.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${filmorate.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        films = build(maximumSize, expireAfterWrite);
+        users = build(maximumSize, expireAfterWrite);
+    }
+
+    public Film getFilm(int id, Function<Integer, Film> loader) {
+        Film film = films.get(id, loader);
+        return film.toBuilder()
+                .likes(film.getLikes() == null ? null : new HashSet<>(film.getLikes()))
+                .genres(film.getGenres() == null ? null : new LinkedHashSet<>(film.getGenres()))
+                .directors(film.getDirectors() == null ? null : new LinkedHashSet<>(film.getDirectors()))
+                .build();
+    }
+
+    public void evictFilm(int id) {
+        evict(films, filmVersions, List.of(id));
+    }
+
+    public void evictFilms(Collection<Integer> ids) {
+        evict(films, filmVersions, ids);
+    }
+
+    public String getFilmVersion(int id) {
+        return "film-" + id + "-" + epoch + "-" + filmVersions.getOrDefault(id, 0L);
+    }
+
+    public User getUser(int id, Function<Integer, User> loader) {
+        User user = users.get(id, loader);
+        return user.toBuilder()
+                .friends(user.getFriends() == null ? null : new HashSet<>(user.getFriends()))
+                .build();
+    }
+
+    public void evictUser(int id) {
+        evict(users, userVersions, List.of(id));
+    }
+
+    public String getUserVersion(int id) {
+        return "user-" + id + "-" + epoch + "-" + userVersions.getOrDefault(id, 0L);
+    }
+
+    public void touchDirectors() {
+        directorsVersion = clock.incrementAndGet();
+        afterCompletion(() -> directorsVersion = clock.incrementAndGet());
+    }
+
+    public String getDirectorsVersion() {
+        return "directors-" + epoch + "-" + directorsVersion;
+    }
+
+    public String getReferenceVersion() {
+        return "reference-" + epoch;
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("films", films.stats());
+        stats.put("users", users.stats());
+        return stats;
+    }
+
+    public Map<String, Long> sizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        sizes.put("films", films.estimatedSize());
+        sizes.put("users", users.estimatedSize());
+        return sizes;
+    }
+
+    private static <V> Cache<Integer, V> build(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    private void evict(Cache<Integer, ?> cache, Map<Integer, Long> versions, Collection<Integer> ids) {
+        List<Integer> keys = new ArrayList<>(ids);
+        Runnable eviction = () -> {
+            cache.invalidateAll(keys);
+            long version = clock.incrementAndGet();
+            keys.forEach(id -> versions.put(id, version));
+        };
+        eviction.run();
+        afterCompletion(eviction);
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "entitycache")
+public class EntityCacheEndpoint {
+
+    private final EntityCache entityCache;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Long> sizes = entityCache.sizes();
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        entityCache.stats().forEach((name, stats) -> result.put(name, describe(sizes.get(name), stats)));
+        return result;
+    }
+
+    private Map<String, Object> describe(long size, CacheStats stats) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("size", size);
+        values.put("hitCount", stats.hitCount());
+        values.put("missCount", stats.missCount());
+        values.put("hitRatio", stats.hitRate());
+        values.put("evictionCount", stats.evictionCount());
+        values.put("loadCount", stats.loadCount());
+        values.put("averageLoadMillis", stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+        values.put("totalLoadMillis", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime()));
+        return values;
+    }
+}
@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MpaStorage mpaStorage;
+    private final GenreStorage genreStorage;
+    private final PrimaryReads primaryReads;
+
+    private volatile Map<Integer, Mpa> mpa;
+    private volatile Map<Integer, Genre> genres;
+    private final Map<Integer, Director> directors = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> directorVersions = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadMpa();
+        loadGenres();
+        log.info("Справочники загружены в кэш: mpa {}, жанров {}", mpa.size(), genres.size());
+    }
+
+    public List<Mpa> findAllMpa() {
+        return new ArrayList<>(mpaMap().values());
+    }
+
+    public Mpa getMpa(int id) {
+        Mpa cached = mpaMap().get(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        Mpa loaded = loadMpa().get(id);
+        if (loaded == null) {
+            throw new NotFoundException("Рейтинг mpa не найден.");
+        }
+        return loaded;
+    }
+
+    public List<Genre> findAllGenres() {
+        return new ArrayList<>(genreMap().values());
+    }
+
+    public Genre getGenre(int id) {
+        Genre cached = genreMap().get(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        Genre loaded = loadGenres().get(id);
+        if (loaded == null) {
+            throw new NotFoundException("Жанр не найден.");
+        }
+        return loaded;
+    }
+
+    public Director getDirector(int id) {
+        Director director = getDirectors(List.of(id)).get(id);
+        if (director == null) {
+            log.error("Режиссёр с id = {} не найден", id);
+            throw new NotFoundException(String.format("Режиссёр с id = %d не найден", id));
+        }
+        return director;
+    }
+
+    public Map<Integer, Director> getDirectors(Collection<Integer> ids) {
+        Map<Integer, Director> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            Director cached = directors.get(id);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        hits.addAndGet(result.size());
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            Map<Integer, Long> versions = new HashMap<>();
+            missing.forEach(id -> versions.put(id, directorVersions.getOrDefault(id, 0L)));
+            Map<Integer, Director> loaded = primaryReads.call(() -> loadDirectors(missing));
+            loaded.forEach((id, director) -> directors.compute(id, (key, cached) ->
+                    versions.get(id).equals(directorVersions.getOrDefault(id, 0L)) ? director : cached));
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public void evictDirector(int id) {
+        Runnable eviction = () -> {
+            directorVersions.put(id, clock.incrementAndGet());
+            directors.remove(id);
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private Map<Integer, Mpa> mpaMap() {
+        Map<Integer, Mpa> current = mpa;
+        if (current != null) {
+            return current;
+        }
+        misses.incrementAndGet();
+        return loadMpa();
+    }
+
+    private Map<Integer, Genre> genreMap() {
+        Map<Integer, Genre> current = genres;
+        if (current != null) {
+            return current;
+        }
+        misses.incrementAndGet();
+        return loadGenres();
+    }
+
+    private synchronized Map<Integer, Mpa> loadMpa() {
+        mpa = Collections.unmodifiableMap(mpaStorage.findAll().stream()
+                .collect(Collectors.toMap(Mpa::getId, Function.identity(), (a, b) -> a, TreeMap::new)));
+        return mpa;
+    }
+
+    private synchronized Map<Integer, Genre> loadGenres() {
+        genres = Collections.unmodifiableMap(genreStorage.findAll().stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity(), (a, b) -> a, TreeMap::new)));
+        return genres;
+    }
+
+    private Map<Integer, Director> loadDirectors(Collection<Integer> ids) {
+        String sql =
+                "SELECT director_id, name " +
+                        "FROM directors " +
+                        "WHERE director_id = ANY(?)";
+
+        Map<Integer, Director> loaded = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            loaded.put(rs.getInt("director_id"), Director.builder()
+                    .id(rs.getInt("director_id"))
+                    .name(rs.getString("name"))
+                    .build());
+        }, (Object) ids.toArray(new Integer[0]));
+        return loaded;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.storage.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+@Component
+public class PrimaryReads {
+
+    private final TransactionTemplate primary;
+
+    @Autowired
+    public PrimaryReads(PlatformTransactionManager transactionManager,
+                        ObjectProvider<ReplicaRoutingDataSource> routingDataSource) {
+        ReplicaRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing == null || routing.getReplicas().isEmpty()) {
+            primary = null;
+        } else {
+            primary = new TransactionTemplate(transactionManager);
+            primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+    }
+
+    private PrimaryReads() {
+        primary = null;
+    }
+
+    public static PrimaryReads direct() {
+        return new PrimaryReads();
+    }
+
+    public <T> T call(Supplier<T> loader) {
+        if (primary == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+        return primary.execute(status -> loader.get());
+    }
+
+    public void run(Runnable loader) {
+        call(() -> {
+            loader.run();
+            return null;
+        });
+    }
+}
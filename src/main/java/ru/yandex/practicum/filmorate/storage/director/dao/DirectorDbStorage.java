@@ -11,7 +11,11 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.index.AfterCommit;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -27,6 +31,9 @@ import java.util.Objects;
 public class DirectorDbStorage implements DirectorStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final FilmSearchIndex searchIndex;
+    private final EntityCache entityCache;
 
     @Override
     public Director addDirector(Director director) {
@@ -44,6 +51,12 @@ public class DirectorDbStorage implements DirectorStorage {
         }, keyHolder);
         int idKey = Objects.requireNonNull(keyHolder.getKey()).intValue();
         director.setId(idKey);
+        entityCache.touchDirectors();
+        AfterCommit.run(() -> {
+            if (searchIndex.isLoaded()) {
+                searchIndex.putDirector(idKey, director.getName());
+            }
+        });
 
         return director;
     }
@@ -80,10 +93,18 @@ public class DirectorDbStorage implements DirectorStorage {
                         "WHERE DIRECTOR_ID = ?";
 
         int update = jdbcTemplate.update(sql, director.getName(), director.getId());
+        referenceDataCache.evictDirector(director.getId());
         if (update == 0) {
             log.error("Режиссёр с id = {} не найден", director.getId());
             throw new NotFoundException(String.format("Режиссёр с id = %d не найден", director.getId()));
         }
+        entityCache.evictFilms(findFilmIds(director.getId()));
+        entityCache.touchDirectors();
+        AfterCommit.run(() -> {
+            if (searchIndex.isLoaded()) {
+                searchIndex.putDirector(director.getId(), director.getName());
+            }
+        });
     }
 
     @Override
@@ -94,7 +115,12 @@ public class DirectorDbStorage implements DirectorStorage {
                         "WHERE DIRECTOR_ID = ?";
 
         Director director = getDirectorById(id);
+        List<Integer> filmIds = findFilmIds(id);
         jdbcTemplate.update(sql, id);
+        entityCache.evictFilms(filmIds);
+        entityCache.touchDirectors();
+        referenceDataCache.evictDirector(id);
+        AfterCommit.run(() -> searchIndex.removeDirector(id));
         log.info("Режиссёр {} удален", director);
     }
 
@@ -137,7 +163,7 @@ public class DirectorDbStorage implements DirectorStorage {
         if (Objects.isNull(film.getDirectors())) {
             return;
         }
-        film.getDirectors().forEach(d -> d.setName(getDirectorById(d.getId()).getName()));
+        film.getDirectors().forEach(d -> d.setName(referenceDataCache.getDirector(d.getId()).getName()));
     }
 
     @Override
@@ -149,6 +175,12 @@ public class DirectorDbStorage implements DirectorStorage {
 
         jdbcTemplate.update(sql, film.getId());
         addDirectorForCurrentFilm(film);
+        entityCache.evictFilm(film.getId());
+    }
+
+    private List<Integer> findFilmIds(int directorId) {
+        return jdbcTemplate.queryForList("SELECT film_id FROM director_films WHERE director_id = ?",
+                Integer.class, directorId);
     }
 
     private Director makeDirector(ResultSet rs) throws SQLException {
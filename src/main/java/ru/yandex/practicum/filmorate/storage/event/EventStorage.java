@@ -8,5 +8,15 @@ public interface EventStorage {
 
     List<Event> getFeed(int userId);
 
+    List<Event> getFeedAfter(int userId, int afterEventId, int limit);
+
+    List<Event> getArchivedFeedAfter(int userId, int afterEventId, int limit);
+
+    List<Event> getEventsBefore(long timestamp, int limit);
+
+    void archiveEvents(List<Event> archived, List<Integer> removedIds);
+
     void createEvent(Event event);
+
+    List<Event> createEvents(List<Event> events);
 }
\ No newline at end of file
@@ -2,15 +2,21 @@ package ru.yandex.practicum.filmorate.storage.event.dao;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.feed.Event;
 import ru.yandex.practicum.filmorate.model.feed.EventOperation;
 import ru.yandex.practicum.filmorate.model.feed.EventType;
 import ru.yandex.practicum.filmorate.storage.event.EventStorage;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -24,11 +30,62 @@ public class EventDbStorage implements EventStorage {
     public List<Event> getFeed(int userId) {
         final String sql = "SELECT event_id, timestamp, user_id, event_type, operation, entity_id " +
                 "FROM feed " +
-                "WHERE user_id = ? ";
+                "WHERE user_id = ? " +
+                "ORDER BY event_id";
 
         return jdbcTemplate.query(sql, this::mapRow, userId);
     }
 
+    @Override
+    public List<Event> getFeedAfter(int userId, int afterEventId, int limit) {
+        final String sql = "SELECT event_id, timestamp, user_id, event_type, operation, entity_id " +
+                "FROM feed " +
+                "WHERE user_id = ? AND event_id > ? " +
+                "ORDER BY event_id " +
+                "LIMIT ?";
+
+        return jdbcTemplate.query(sql, this::mapRow, userId, afterEventId, limit);
+    }
+
+    @Override
+    public List<Event> getArchivedFeedAfter(int userId, int afterEventId, int limit) {
+        final String sql = "SELECT event_id, timestamp, user_id, event_type, operation, entity_id " +
+                "FROM feed_archive " +
+                "WHERE user_id = ? AND event_id > ? " +
+                "ORDER BY event_id " +
+                "LIMIT ?";
+
+        return jdbcTemplate.query(sql, this::mapRow, userId, afterEventId, limit);
+    }
+
+    @Override
+    public List<Event> getEventsBefore(long timestamp, int limit) {
+        final String sql = "SELECT event_id, timestamp, user_id, event_type, operation, entity_id " +
+                "FROM feed " +
+                "WHERE timestamp < ? " +
+                "ORDER BY timestamp, event_id " +
+                "LIMIT ?";
+
+        return jdbcTemplate.query(sql, this::mapRow, timestamp, limit);
+    }
+
+    @Override
+    @Transactional
+    public void archiveEvents(List<Event> archived, List<Integer> removedIds) {
+        final String sql = "INSERT INTO feed_archive " +
+                "(event_id, timestamp, user_id, event_type, operation, entity_id) values (?, ?, ?, ?, ?, ?)";
+
+        jdbcTemplate.batchUpdate(sql, archived, archived.size(), (ps, event) -> {
+            ps.setInt(1, event.getEventId());
+            ps.setLong(2, event.getTimestamp());
+            ps.setInt(3, event.getUserId());
+            ps.setString(4, event.getEventType().name());
+            ps.setString(5, event.getOperation().name());
+            ps.setInt(6, event.getEntityId());
+        });
+        jdbcTemplate.update("DELETE FROM feed WHERE event_id = ANY(?)", (Object) removedIds.toArray(new Integer[0]));
+    }
+
     @Override
     public void createEvent(Event event) {
         final String sql = "INSERT INTO feed " +
@@ -44,6 +101,56 @@ public class EventDbStorage implements EventStorage {
         );
     }
 
+    @Override
+    public List<Event> createEvents(List<Event> events) {
+        final String sql = "INSERT INTO feed " +
+                "(timestamp, user_id, event_type, operation, entity_id) values (?, ?, ?, ?, ?)";
+
+        return jdbcTemplate.execute((ConnectionCallback<List<Event>>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            Savepoint savepoint = autoCommit ? null : connection.setSavepoint();
+            connection.setAutoCommit(false);
+            try {
+                List<Event> created = insertEvents(connection, sql, events);
+                if (autoCommit) {
+                    connection.commit();
+                }
+                return created;
+            } catch (SQLException | RuntimeException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                } else {
+                    connection.rollback(savepoint);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private List<Event> insertEvents(Connection connection, String sql, List<Event> events) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql, new String[]{"event_id"})) {
+            for (Event event : events) {
+                stmt.setLong(1, event.getTimestamp());
+                stmt.setInt(2, event.getUserId());
+                stmt.setString(3, event.getEventType().name());
+                stmt.setString(4, event.getOperation().name());
+                stmt.setInt(5, event.getEntityId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            List<Event> created = new ArrayList<>(events.size());
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (Event event : events) {
+                    keys.next();
+                    created.add(event.toBuilder().eventId(keys.getInt(1)).build());
+                }
+            }
+            return created;
+        }
+    }
+
     private Event mapRow(ResultSet rs, int rowNum) throws SQLException {
         return Event.builder()
                 .eventId(rs.getInt("event_id"))
@@ -1,9 +1,11 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
@@ -11,22 +13,34 @@ public interface FilmStorage {
 
     List<Film> findAllFilms();
 
+    List<Film> findFilmsAfter(int afterId, int limit);
+
+    void exportFilms(int fetchSize, Consumer<Film> consumer);
+
     Film addFilm(Film film);
 
+    List<Film> addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
-    Film like(Integer filmId, Integer userId);
+    boolean like(Integer filmId, Integer userId);
 
-    Film deleteLike(Integer filmId, Integer userId);
+    boolean deleteLike(Integer filmId, Integer userId);
+
+    List<LikeOperation> applyLikes(List<LikeOperation> operations);
 
     List<Film> getPopularFilms(int count, int genre, int year);
 
+    void rebuildLikeCounts();
+
     LinkedHashSet<Film> filmsByDirector(int directorId, String sortBy);
 
     List<Film> getCommonFilms(int userId, int friendId);
 
     List<Film> searchBy(String query, String by);
 
+    void rebuildSearchIndex();
+
     List<Film> getRecommendedFilms(int userId);
 
     Film deleteFilm(Integer id);
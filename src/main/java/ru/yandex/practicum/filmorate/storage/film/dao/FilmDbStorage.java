@@ -3,22 +3,33 @@ package ru.yandex.practicum.filmorate.storage.film.dao;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.AfterCommit;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.SearchField;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Primary
 @Slf4j
@@ -26,60 +37,119 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
 
+    private static final String MERGE_LIKE =
+            "MERGE INTO likes " +
+                    "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER))) AS l (film_id, user_id) " +
+                    "ON likes.film_id = l.film_id AND likes.user_id = l.user_id " +
+                    "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (l.film_id, l.user_id)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final FilmHydrator filmHydrator;
+    private final ReferenceDataCache referenceDataCache;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final LikeIndex likeIndex;
+    private final EntityCache entityCache;
+    private final PrimaryReads primaryReads;
 
     @Override
     public Film getFilmById(Integer id) {
+        return entityCache.getFilm(id, filmId -> primaryReads.call(() -> loadFilm(filmId)));
+    }
+
+    private Film loadFilm(Integer id) {
         final String getFilmSqlQuery =
                 "SELECT films.* " +
                         "FROM films " +
                         "WHERE films.film_id = ?";
-        try {
-            return jdbcTemplate.queryForObject(getFilmSqlQuery, this::makeFilm, id);
-        } catch (RuntimeException e) {
+        List<Film> films = jdbcTemplate.query(getFilmSqlQuery, this::makeFilm, id);
+        if (films.isEmpty()) {
             throw new NotFoundException("Фильм не найден.");
         }
+        return filmHydrator.hydrate(films).get(0);
     }
 
     @Override
     public List<Film> findAllFilms() {
-        List<Film> films = new ArrayList<>();
-        SqlRowSet filmRows = jdbcTemplate.queryForRowSet(
+        List<Film> films = jdbcTemplate.query(
                 "SELECT film_id, name, description, release_date, duration, rating_mpa_id " +
-                        "FROM films");
-
-        while (filmRows.next()) {
-            Film film = Film.builder()
-                    .id(filmRows.getInt("film_id"))
-                    .name(filmRows.getString("name"))
-                    .description(filmRows.getString("description"))
-                    .releaseDate(Objects.requireNonNull(filmRows.getDate("release_date")).toLocalDate())
-                    .duration(filmRows.getInt("duration"))
-                    .mpa(getMpaById(filmRows.getInt("rating_mpa_id")))
-                    .build();
-            film.setGenres(getGenre(film.getId()));
-            film.setLikes(getLikes(film.getId()));
-            film.setDirectors(getFilmDirectors(film.getId()));
-
-            films.add(film);
-        }
-        return films;
+                        "FROM films", this::makeFilm);
+
+        return filmHydrator.hydrate(films);
+    }
+
+    @Override
+    public List<Film> findFilmsAfter(int afterId, int limit) {
+        String sqlQuery =
+                "SELECT film_id, name, description, release_date, duration, rating_mpa_id " +
+                        "FROM films " +
+                        "WHERE film_id > ? " +
+                        "ORDER BY film_id " +
+                        "LIMIT ?";
+
+        return filmHydrator.hydrate(jdbcTemplate.query(sqlQuery, this::makeFilm, afterId, limit));
     }
 
     @Override
+    public void exportFilms(int fetchSize, Consumer<Film> consumer) {
+        String sqlQuery =
+                "SELECT film_id, name, description, release_date, duration, rating_mpa_id " +
+                        "FROM films " +
+                        "ORDER BY film_id";
+
+        List<Film> chunk = new ArrayList<>(fetchSize);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            return stmt;
+        }, (RowCallbackHandler) rs -> {
+            chunk.add(makeFilm(rs, rs.getRow()));
+            if (chunk.size() >= fetchSize) {
+                filmHydrator.hydrateOnCallerThread(chunk).forEach(consumer);
+                chunk.clear();
+            }
+        });
+        filmHydrator.hydrateOnCallerThread(chunk).forEach(consumer);
+    }
+
+    @Override
+    @Transactional
     public Film addFilm(Film film) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("films")
-                .usingGeneratedKeyColumns("film_id");
-
-        film.setId(simpleJdbcInsert.executeAndReturnKey(toMap(film)).intValue());
-        addMpa(film);
-        addGenreName(film);
-        addGenresForCurrentFilm(film);
-        addDirectorForCurrentFilm(film);
-        addDirectorNameToFilm(film);
-        log.info("Поступил запрос на добавление фильма. Фильм добавлен.");
-        return film;
+        return addFilms(List.of(film)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<Film> addFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        films.forEach(this::resolveReferences);
+        insertFilms(films);
+
+        List<Object[]> genreRows = new ArrayList<>();
+        List<Object[]> directorRows = new ArrayList<>();
+        for (Film film : films) {
+            genreIds(film).forEach(genreId -> genreRows.add(new Object[]{film.getId(), genreId}));
+            directorIds(film).forEach(directorId -> directorRows.add(new Object[]{film.getId(), directorId}));
+            film.setLikes(new HashSet<>());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO genre (film_id, genre_id) VALUES (?, ?)", genreRows);
+        jdbcTemplate.batchUpdate("INSERT INTO director_films (film_id, director_id) VALUES (?, ?)", directorRows);
+
+        AfterCommit.run(() -> {
+            for (Film film : films) {
+                if (popularityIndex.isLoaded()) {
+                    popularityIndex.put(film.getId(), film.getReleaseDate().getYear(), genreIds(film), 0);
+                }
+                if (searchIndex.isLoaded()) {
+                    searchIndex.putFilm(film.getId(), film.getName(), directorIds(film));
+                }
+            }
+        });
+        log.info("Добавлено фильмов: {}.", films.size());
+        return films;
     }
 
     @Override
@@ -91,18 +161,27 @@ public class FilmDbStorage implements FilmStorage {
                         "WHERE film_id = ?";
 
         jdbcTemplate.update(sqlQuery, id);
+        entityCache.evictFilm(id);
+        AfterCommit.run(() -> {
+            popularityIndex.remove(id);
+            searchIndex.removeFilm(id, film.getName(), directorIds(film));
+            likeIndex.removeFilm(id);
+        });
         return film;
     }
 
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
+        resolveReferences(film);
+        List<String> previousNames = jdbcTemplate.queryForList("SELECT name FROM films WHERE film_id = ?",
+                String.class, film.getId());
         String sqlQuery =
                 "UPDATE films " +
                         "SET name=?, description=?, release_date=?, duration=?, rating_mpa_id=? " +
                         "WHERE film_id=?";
 
-        int rowsCount;
-        rowsCount = jdbcTemplate.update(sqlQuery,
+        int rowsCount = jdbcTemplate.update(sqlQuery,
                 film.getName(),
                 film.getDescription(),
                 film.getReleaseDate(),
@@ -110,474 +189,442 @@ public class FilmDbStorage implements FilmStorage {
                 film.getMpa().getId(),
                 film.getId()
         );
-        addMpa(film);
-        updateGenres(film);
-        addGenreName(film);
-        updateDirectorsFilm(film);
-        film.setDirectors(getFilmDirectors(film.getId()));
-        film.setGenres(getGenre(film.getId()));
-
-        if (rowsCount > 0) {
-            return getFilmById(film.getId());
-        } else {
+        if (rowsCount == 0) {
             throw new NotFoundException("Фильм не найден.");
         }
+        entityCache.evictFilm(film.getId());
+
+        Set<Integer> oldGenres = new HashSet<>();
+        Set<Integer> oldDirectors = new HashSet<>();
+        Set<Integer> likes = new HashSet<>();
+        jdbcTemplate.query("SELECT 'G' AS kind, genre_id AS id FROM genre WHERE film_id = ? " +
+                "UNION ALL SELECT 'D', director_id FROM director_films WHERE film_id = ? " +
+                "UNION ALL SELECT 'L', like_id FROM likes WHERE film_id = ?", rs -> {
+            String kind = rs.getString("kind");
+            Set<Integer> target = kind.equals("G") ? oldGenres : kind.equals("D") ? oldDirectors : likes;
+            target.add(rs.getInt("id"));
+        }, film.getId(), film.getId(), film.getId());
+
+        List<Integer> newGenres = genreIds(film);
+        List<Integer> newDirectors = directorIds(film);
+        replaceRows("genre", "genre_id", film.getId(), oldGenres, newGenres);
+        replaceRows("director_films", "director_id", film.getId(), oldDirectors, newDirectors);
+        film.setLikes(likes);
+
+        int filmId = film.getId();
+        int year = film.getReleaseDate().getYear();
+        String name = film.getName();
+        AfterCommit.run(() -> {
+            if (popularityIndex.isLoaded()) {
+                popularityIndex.update(filmId, year, newGenres);
+            }
+            if (searchIndex.isLoaded()) {
+                searchIndex.removeFilm(filmId, previousNames.get(0), new ArrayList<>(oldDirectors));
+                searchIndex.putFilm(filmId, name, newDirectors);
+            }
+        });
+        return film;
     }
 
     @Override
-    public Film like(Integer filmId, Integer userId) {
-        Film film = getFilmById(filmId);
-        String sqlQuery =
-                "INSERT " +
-                        "INTO likes (film_id, user_id) " +
-                        "VALUES(?, ?)";
+    @Transactional
+    public boolean like(Integer filmId, Integer userId) {
+        getFilmById(filmId);
+        if (jdbcTemplate.update(MERGE_LIKE, filmId, userId) == 0) {
+            return false;
+        }
+        entityCache.evictFilm(filmId);
+        changeLikeCount(filmId, 1);
+        AfterCommit.run(() -> {
+            if (likeIndex.isLoaded()) {
+                likeIndex.like(filmId, userId);
+            }
+        });
+        return true;
+    }
 
-        jdbcTemplate.update(sqlQuery, filmId, userId);
-        return film;
+    @Override
+    @Transactional
+    public List<LikeOperation> applyLikes(List<LikeOperation> operations) {
+        Map<List<Integer>, LikeOperation> latest = new LinkedHashMap<>();
+        for (LikeOperation operation : operations) {
+            List<Integer> key = List.of(operation.getFilmId(), operation.getUserId());
+            latest.remove(key);
+            latest.put(key, operation);
+        }
+        checkExist("films", "film_id", latest.values().stream().map(LikeOperation::getFilmId),
+                "Фильмы не найдены: ");
+        checkExist("users", "user_id", latest.values().stream().map(LikeOperation::getUserId),
+                "Пользователи не найдены: ");
+
+        List<LikeOperation> added = latest.values().stream()
+                .filter(operation -> operation.getOp() == EventOperation.ADD)
+                .collect(Collectors.toList());
+        List<LikeOperation> removed = latest.values().stream()
+                .filter(operation -> operation.getOp() == EventOperation.REMOVE)
+                .collect(Collectors.toList());
+        int[] addedRows = jdbcTemplate.batchUpdate(MERGE_LIKE, likeRows(added));
+        int[] removedRows = jdbcTemplate.batchUpdate("DELETE FROM likes WHERE film_id = ? AND user_id = ?",
+                likeRows(removed));
+
+        List<LikeOperation> applied = new ArrayList<>();
+        Map<Integer, Integer> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < added.size(); i++) {
+            if (addedRows[i] > 0) {
+                applied.add(added.get(i));
+                deltas.merge(added.get(i).getFilmId(), 1, Integer::sum);
+            }
+        }
+        for (int i = 0; i < removed.size(); i++) {
+            if (removedRows[i] > 0) {
+                applied.add(removed.get(i));
+                deltas.merge(removed.get(i).getFilmId(), -1, Integer::sum);
+            }
+        }
+        entityCache.evictFilms(applied.stream().map(LikeOperation::getFilmId).collect(Collectors.toSet()));
+        deltas.values().removeIf(delta -> delta == 0);
+        jdbcTemplate.batchUpdate("UPDATE films SET like_count = like_count + ? WHERE film_id = ?",
+                deltas.entrySet().stream()
+                        .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                        .collect(Collectors.toList()));
+        AfterCommit.run(() -> {
+            popularityIndex.refreshLikes(deltas.keySet(), this::loadLikeCounts);
+            for (LikeOperation operation : applied) {
+                if (operation.getOp() == EventOperation.REMOVE) {
+                    likeIndex.unlike(operation.getFilmId(), operation.getUserId());
+                } else if (likeIndex.isLoaded()) {
+                    likeIndex.like(operation.getFilmId(), operation.getUserId());
+                }
+            }
+        });
+        log.info("Пакет лайков: получено {}, применено {}.", operations.size(), applied.size());
+        return applied;
     }
 
     @Override
-    public Film deleteLike(Integer filmId, Integer userId) {
+    @Transactional
+    public boolean deleteLike(Integer filmId, Integer userId) {
         if (getUserById(userId) == null) {
             throw new NotFoundException("Пользователь не найден.");
         }
-        Film film = getFilmById(filmId);
+        getFilmById(filmId);
         String sqlQuery =
                 "DELETE " +
                         "FROM likes " +
                         "WHERE film_id = ? AND user_id = ?";
 
-        jdbcTemplate.update(sqlQuery, filmId, userId);
-        return film;
+        int deleted = jdbcTemplate.update(sqlQuery, filmId, userId);
+        if (deleted == 0) {
+            return false;
+        }
+        entityCache.evictFilm(filmId);
+        changeLikeCount(filmId, -deleted);
+        AfterCommit.run(() -> likeIndex.unlike(filmId, userId));
+        return true;
     }
 
     @Override
     public List<Film> getPopularFilms(int count, int genre, int year) {
-        String sqlQuery;
-        String sqlQueryStart =
-                "SELECT films.*, COUNT(l.film_id) as count, G.*, GT.*, GT.NAME as genre_name " +
-                        "FROM films " +
-                        "LEFT JOIN likes l ON films.film_id=l.film_id " +
-                        "LEFT JOIN GENRE G on FILMS.FILM_ID = G.FILM_ID " +
-                        "LEFT JOIN GENRE_TYPE GT on G.ID = GT.GENRE_ID ";
-
-        String sqlQueryFinish = "GROUP BY films.film_id, gt.NAME " +
-                "ORDER BY count DESC " +
-                "LIMIT ?";
-
-        if (year == -1 && genre == -1) {
-            String popularFilmsSqlQuery =
-                    "SELECT films.*, COUNT(l.film_id) as count " +
-                            "FROM films " +
-                            "LEFT JOIN likes l ON films.film_id=l.film_id " +
-                            "GROUP BY films.film_id " +
-                            "ORDER BY count DESC " +
-                            "LIMIT ?";
-
-            return jdbcTemplate.query(popularFilmsSqlQuery, (resultSet, rowNum) -> Film.builder()
-                    .id(resultSet.getInt("film_id"))
-                    .name(resultSet.getString("name"))
-                    .description(resultSet.getString("description"))
-                    .releaseDate(Objects.requireNonNull(resultSet.getDate("release_date")).toLocalDate())
-                    .duration(resultSet.getInt("duration"))
-                    .mpa(getMpaById(resultSet.getInt("rating_mpa_id")))
-                    .genres(getGenre(resultSet.getInt("film_id")))
-                    .likes(getLikes(resultSet.getInt("film_id")))
-                    .build(), count);
-        } else if (genre == -1 && year > 0) {
-            String sqlQueryMiddle = "WHERE EXTRACT(YEAR FROM CAST(FILMS.RELEASE_DATE AS DATE)) = ? ";
-            sqlQuery = sqlQueryStart + sqlQueryMiddle + sqlQueryFinish;
-
-            return jdbcTemplate.query(sqlQuery, this::makeFilm, year, count);
-        } else if (genre > 0 && year == -1) {
-            String sqlQueryMiddle = "WHERE G.GENRE_ID = ? ";
-            sqlQuery = sqlQueryStart + sqlQueryMiddle + sqlQueryFinish;
-
-            return jdbcTemplate.query(sqlQuery, this::makeFilm, genre, count);
-        } else {
-            String sqlQueryMiddle = "WHERE G.GENRE_ID = ? AND EXTRACT(YEAR FROM CAST(FILMS.RELEASE_DATE AS DATE)) = ? ";
-            sqlQuery = sqlQueryStart + sqlQueryMiddle + sqlQueryFinish;
+        popularityIndex.loadIfAbsent(index -> primaryReads.run(() -> loadPopularity(index)));
+        return findFilmsByIds(popularityIndex.top(count, genre, year));
+    }
 
-            return jdbcTemplate.query(sqlQuery, this::makeFilm, genre, year, count);
-        }
+    @Override
+    @Transactional
+    public void rebuildLikeCounts() {
+        String sqlQuery =
+                "UPDATE films " +
+                        "SET like_count = (SELECT COUNT(*) FROM likes WHERE likes.film_id = films.film_id)";
+
+        int rowsCount = jdbcTemplate.update(sqlQuery);
+        popularityIndex.reload(this::loadPopularity);
+        log.info("Счётчики лайков пересчитаны для {} фильмов.", rowsCount);
     }
 
     @Override
     public LinkedHashSet<Film> filmsByDirector(int directorId, String sortBy) {
         getDirectorById(directorId);
-        SqlRowSet sql;
+        List<Film> films;
         if (sortBy.equals("year")) {
-            sql = jdbcTemplate.queryForRowSet("SELECT f.* " +
+            films = jdbcTemplate.query("SELECT f.* " +
                     "FROM DIRECTOR_FILMS AS df " +
                     "JOIN FILMS AS f ON df.FILM_ID = f.FILM_ID " +
                     "WHERE DIRECTOR_ID = ? " +
                     "GROUP BY f.FILM_ID, f.RELEASE_DATE " +
-                    "ORDER BY f.RELEASE_DATE", directorId);
+                    "ORDER BY f.RELEASE_DATE", this::makeFilm, directorId);
 
         } else if (sortBy.equals("likes")) {
-            sql = jdbcTemplate.queryForRowSet("SELECT f.* " +
+            films = jdbcTemplate.query("SELECT f.* " +
                     "FROM DIRECTOR_FILMS AS df " +
                     "JOIN FILMS AS f ON df.FILM_ID = f.FILM_ID " +
-                    "LEFT JOIN LIKES AS l On f.FILM_ID = l.FILM_ID " +
                     "WHERE DIRECTOR_ID = ? " +
-                    "GROUP BY f.FILM_ID, l.FILM_ID IN (SELECT FILM_ID FROM LIKES) " +
-                    "ORDER BY COUNT(l.FILM_ID) DESC", directorId);
+                    "ORDER BY f.LIKE_COUNT DESC, f.FILM_ID", this::makeFilm, directorId);
 
         } else {
             log.error("Ошибка в sortBy");
             throw new ValidationException("Ошибка в sortBy");
         }
-        Collection<Film> films = new ArrayList<>();
-        while (sql.next()) {
-            Film film = Film.builder()
-                    .id(sql.getInt("film_id"))
-                    .name(sql.getString("name"))
-                    .description(sql.getString("description"))
-                    .releaseDate(Objects.requireNonNull(sql.getDate("release_date")).toLocalDate())
-                    .duration(sql.getInt("duration"))
-                    .mpa(getMpaById(sql.getInt("rating_mpa_id")))
-                    .build();
-            film.setGenres(getGenre(film.getId()));
-            film.setLikes(getLikes(film.getId()));
-            film.setDirectors(getFilmDirectors(film.getId()));
-            films.add(film);
-        }
-        return new LinkedHashSet<>(films);
+        return new LinkedHashSet<>(filmHydrator.hydrate(films));
     }
 
     @Override
     public List<Film> searchBy(String query, String by) {
-        List<Film> searchResults = new ArrayList<>();
-
-        switch (by) {
-            case "title": {
-                String sql = "SELECT films.*, G.genre_id, GT.name AS genre_name, COUNT(l.film_id) as count " +
-                        "FROM films " +
-                        "LEFT JOIN genre g ON films.film_id = g.film_id " +
-                        "LEFT JOIN genre_type gt on g.genre_id = gt.genre_id " +
-                        "LEFT JOIN likes l ON films.film_id=l.film_id " +
-                        "WHERE LOWER(films.name) LIKE LOWER(CONCAT('%',?,'%')) " +
-                        "GROUP BY films.film_id " +
-                        "ORDER BY count DESC";
-                searchResults = jdbcTemplate.query(sql, this::makeFilm, query);
-                break;
-            }
-            case "director": {
-                String sql = "SELECT films.*, COUNT(l.film_id) as count " +
-                        "FROM films " +
-                        "JOIN director_films  df ON films.film_id=df.film_id " +
-                        "JOIN directors  d ON df.director_id=d.director_id " +
-                        "LEFT JOIN likes l ON films.film_id=l.film_id " +
-                        "WHERE LOWER(d.name) LIKE LOWER(CONCAT('%',?,'%')) " +
-                        "GROUP BY films.film_id " +
-                        "ORDER BY count DESC";
-                searchResults = jdbcTemplate.query(sql, this::makeFilm, query);
-                break;
-            }
-            case "title,director": {
-                String sql = "SELECT films.*, COUNT(l.film_id) as count " +
-                        "FROM films " +
-                        "LEFT JOIN director_films  df ON films.film_id=df.film_id " +
-                        "LEFT JOIN directors  d ON df.director_id=d.director_id " +
-                        "LEFT JOIN likes l ON films.film_id=l.film_id " +
-                        "WHERE LOWER(films.name) LIKE LOWER(CONCAT('%',?,'%')) " +
-                        "OR LOWER(d.name) LIKE LOWER(CONCAT('%',?,'%')) " +
-                        "GROUP BY films.film_id " +
-                        "ORDER BY count DESC";
-                searchResults = jdbcTemplate.query(sql, this::makeFilm, query, query);
-                break;
-            }
-        }
-        return searchResults;
+        Set<SearchField> fields = SearchField.parse(by);
+        searchIndex.loadIfAbsent(index -> primaryReads.run(() -> loadSearch(index)));
+        popularityIndex.loadIfAbsent(index -> primaryReads.run(() -> loadPopularity(index)));
+        return findFilmsByIds(searchIndex.search(query, fields, popularityIndex::getLikeCount));
     }
 
-    public Mpa getMpaById(int mpaId) {
-        String sqlQuery =
-                "SELECT rating_mpa_id, name " +
-                        "FROM mpa_type " +
-                        "WHERE rating_mpa_id=?";
-
-        try {
-            return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToMpa, mpaId);
-        } catch (RuntimeException e) {
-            throw new NotFoundException("Рейтинг mpa не найден.");
-        }
+    @Override
+    public void rebuildSearchIndex() {
+        searchIndex.reload(this::loadSearch);
+        log.info("Поисковый индекс фильмов построен.");
     }
 
-    public void addMpa(Film film) {
-        findAllMpa().forEach(mpa -> {
-            if (Objects.equals(film.getMpa().getId(), mpa.getId())) {
-                film.setMpa(mpa);
-            }
-        });
+    public Mpa getMpaById(int mpaId) {
+        return referenceDataCache.getMpa(mpaId);
     }
 
-    public List<Mpa> findAllMpa() {
-        List<Mpa> mpaList = new ArrayList<>();
-
-        SqlRowSet mpaRows = jdbcTemplate.queryForRowSet(
-                "SELECT rating_mpa_id, name " +
-                        "FROM mpa_type");
+    public Set<Genre> getGenre(int id) {
+        String sqlQuery =
+                "SELECT gt.genre_id, gt.name " +
+                        "FROM genre AS g " +
+                        "JOIN genre_type AS gt ON g.genre_id = gt.genre_id " +
+                        "WHERE g.film_id = ? " +
+                        "ORDER BY gt.genre_id";
 
-        while (mpaRows.next()) {
-            Mpa mpa = Mpa.builder()
-                    .id(mpaRows.getInt("rating_mpa_id"))
-                    .name(mpaRows.getString("name"))
-                    .build();
-            mpaList.add(mpa);
-        }
-        return mpaList;
+        return new LinkedHashSet<>(jdbcTemplate.query(sqlQuery, this::mapRowToGenre, id));
     }
 
-    private Mpa mapRowToMpa(ResultSet resultSet, int rowNum) throws SQLException {
-        return Mpa.builder()
-                .id(resultSet.getInt("rating_mpa_id"))
-                .name(resultSet.getString("name"))
-                .build();
-    }
-
-    public Genre getGenreForId(int id) {
+    public User getUserById(Integer id) {
         String sqlQuery =
-                "SELECT genre_id, name " +
-                        "FROM genre_type " +
-                        "WHERE genre_id=?";
+                "SELECT user_id, email, login, name, birthday " +
+                        "FROM users " +
+                        "WHERE user_id=?";
 
         try {
-            return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToGenre, id);
+            return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToUser, id);
         } catch (RuntimeException e) {
-            throw new NotFoundException("Жанр не найден.");
+            throw new NotFoundException("Пользователь не найден.");
         }
     }
 
-    public Set<Genre> getGenre(int id) {
-        Set<Genre> genreSet = new HashSet<>();
-
-        SqlRowSet genreRows = jdbcTemplate.queryForRowSet(
-                "SELECT film_id, genre_id " +
-                        "FROM genre " +
-                        "ORDER BY genre_id ASC");
+    public Set<Integer> getLikes(int id) {
+        String sqlQuery =
+                "SELECT like_id " +
+                        "FROM likes " +
+                        "WHERE film_id = ?";
 
-        while (genreRows.next()) {
-            if (genreRows.getLong("film_id") == id) {
-                genreSet.add(getGenreForId(genreRows.getInt("genre_id")));
-            }
-        }
-        return genreSet;
+        return new HashSet<>(jdbcTemplate.queryForList(sqlQuery, Integer.class, id));
     }
 
-    public void addGenresForCurrentFilm(Film film) {
-        if (Objects.isNull(film.getGenres())) {
-            return;
-        }
+    public LinkedHashSet<Director> getFilmDirectors(Integer filmId) {
+        String sql =
+                "SELECT d.DIRECTOR_ID, d.name " +
+                        "FROM DIRECTOR_FILMS AS df " +
+                        "LEFT JOIN DIRECTORS AS d ON df.DIRECTOR_ID = d.DIRECTOR_ID " +
+                        "WHERE df.film_id = ?";
 
-        film.getGenres().forEach(g -> {
-            String sqlQuery =
-                    "INSERT " +
-                            "INTO genre(film_id, genre_id) " +
-                            "VALUES (?, ?)";
+        Collection<Director> directors = jdbcTemplate.query(sql, (rs, rowNum) -> makeDirector(rs), filmId);
 
-            jdbcTemplate.update(sqlQuery, film.getId(), g.getId());
-        });
+        return new LinkedHashSet<>(directors);
     }
 
-    public void addGenreName(Film film) {
-        if (Objects.isNull(film.getGenres())) {
-            return;
-        }
-        film.getGenres().forEach(g -> g.setName(getGenreForId(g.getId()).getName()));
+    public Director getDirectorById(int id) {
+        return referenceDataCache.getDirector(id);
     }
 
-    public void updateGenres(Film film) {
-        String sqlQuery =
-                "DELETE " +
-                        "FROM genre " +
-                        "WHERE film_id = ?";
+    @Override
+    public List<Film> getCommonFilms(int userId, int friendId) {
+        likeIndex.loadIfAbsent(index -> primaryReads.run(() -> loadLikes(index)));
+        return findFilmsByIds(likeIndex.getCommonFilms(userId, friendId));
+    }
 
-        jdbcTemplate.update(sqlQuery, film.getId());
-        addGenresForCurrentFilm(film);
+    @Override
+    public List<Film> getRecommendedFilms(int userId) {
+        likeIndex.loadIfAbsent(index -> primaryReads.run(() -> loadLikes(index)));
+        return findFilmsByIds(likeIndex.getRecommendations(userId));
     }
 
-    public User getUserById(Integer id) {
+    private List<Film> findFilmsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
         String sqlQuery =
-                "SELECT user_id, email, login, name, birthday " +
-                        "FROM users " +
-                        "WHERE user_id=?";
+                "SELECT film_id, name, description, release_date, duration, rating_mpa_id " +
+                        "FROM films " +
+                        "WHERE film_id = ANY(?)";
 
-        try {
-            return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToUser, id);
-        } catch (RuntimeException e) {
-            throw new NotFoundException("Пользователь не найден.");
-        }
+        Map<Integer, Film> films = jdbcTemplate.query(sqlQuery, this::makeFilm, (Object) ids.toArray(new Integer[0]))
+                .stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+        return filmHydrator.hydrate(ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
     }
 
-    public List<User> getFriendsByUserId(Integer id) {
-        String sqlQuery =
-                "SELECT user_id, email, login, name, birthday " +
-                        "FROM users " +
-                        "WHERE user_id " +
-                        "IN(SELECT friend_id " +
-                        "FROM friends " +
-                        "WHERE user_id=?)";
-
-        return new ArrayList<>(jdbcTemplate.query(sqlQuery, this::mapRowToUser, id));
+    private void loadPopularity(PopularityIndex index) {
+        Map<Integer, List<Integer>> genres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM genre", rs -> {
+            genres.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+        jdbcTemplate.query("SELECT film_id, release_date, like_count FROM films", rs -> {
+            int filmId = rs.getInt("film_id");
+            index.put(filmId,
+                    rs.getDate("release_date").toLocalDate().getYear(),
+                    genres.getOrDefault(filmId, List.of()),
+                    rs.getInt("like_count"));
+        });
     }
 
-    public Set<Integer> getLikes(int id) {
-        Set<Integer> likes = new HashSet<>();
-        SqlRowSet likeRows = jdbcTemplate.queryForRowSet(
-                "SELECT like_id, film_id, user_id " +
-                        "FROM likes");
+    private void loadSearch(FilmSearchIndex index) {
+        jdbcTemplate.query("SELECT director_id, name FROM directors", rs -> {
+            index.putDirector(rs.getInt("director_id"), rs.getString("name"));
+        });
+        jdbcTemplate.query("SELECT film_id, name FROM films", rs -> {
+            index.putFilm(rs.getInt("film_id"), rs.getString("name"), List.of());
+        });
+        jdbcTemplate.query("SELECT film_id, director_id FROM director_films", rs -> {
+            index.linkDirector(rs.getInt("film_id"), rs.getInt("director_id"));
+        });
+    }
 
-        while (likeRows.next()) {
-            if (likeRows.getInt("film_id") == id) {
-                likes.add(likeRows.getInt("like_id"));
-            }
-        }
-        return likes;
+    private void loadLikes(LikeIndex index) {
+        jdbcTemplate.query("SELECT film_id, user_id FROM likes ORDER BY film_id, user_id", rs -> {
+            index.put(rs.getInt("film_id"), rs.getInt("user_id"));
+        });
     }
 
-    public void addDirectorForCurrentFilm(Film film) {
-        if (Objects.isNull(film.getDirectors())) {
+    private void checkExist(String table, String column, Stream<Integer> ids, String message) {
+        Set<Integer> wanted = ids.collect(Collectors.toSet());
+        if (wanted.isEmpty()) {
             return;
         }
-        try {
-            film.getDirectors().forEach(d -> {
-                String sqlQuery =
-                        "INSERT " +
-                                "INTO DIRECTOR_FILMS(FILM_ID, DIRECTOR_ID) " +
-                                "VALUES (?, ?)";
-
-                jdbcTemplate.update(sqlQuery,
-                        film.getId(),
-                        d.getId());
-            });
-        } catch (DataIntegrityViolationException e) {
-            log.error("Один из режисcёров не найден: {}", film.getDirectors());
-            throw new NotFoundException("Один из режиcсёров не найден: " + film.getDirectors());
+        Set<Integer> found = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT " + column + " FROM " + table + " WHERE " + column + " = ANY(?)",
+                Integer.class, (Object) wanted.toArray(new Integer[0])));
+        wanted.removeAll(found);
+        if (!wanted.isEmpty()) {
+            throw new NotFoundException(message + new TreeSet<>(wanted));
         }
     }
 
-    public LinkedHashSet<Director> getFilmDirectors(Integer filmId) {
-        String sql =
-                "SELECT d.DIRECTOR_ID, d.name " +
-                        "FROM DIRECTOR_FILMS AS df " +
-                        "LEFT JOIN DIRECTORS AS d ON df.DIRECTOR_ID = d.DIRECTOR_ID " +
-                        "WHERE df.film_id = ?";
+    private List<Object[]> likeRows(List<LikeOperation> operations) {
+        return operations.stream()
+                .map(operation -> new Object[]{operation.getFilmId(), operation.getUserId()})
+                .collect(Collectors.toList());
+    }
 
-        Collection<Director> directors = jdbcTemplate.query(sql, (rs, rowNum) -> makeDirector(rs), filmId);
+    private void changeLikeCount(int filmId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        String sqlQuery =
+                "UPDATE films " +
+                        "SET like_count = like_count + ? " +
+                        "WHERE film_id = ?";
 
-        return new LinkedHashSet<>(directors);
+        jdbcTemplate.update(sqlQuery, delta, filmId);
+        AfterCommit.run(() -> popularityIndex.refreshLikes(List.of(filmId), this::loadLikeCounts));
     }
 
-    public Director getDirectorById(int id) {
-        String sql = "SELECT DIRECTOR_ID, NAME " +
-                "FROM DIRECTORS " +
-                "WHERE DIRECTOR_ID = ?";
-
-        try {
-            return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> makeDirector(rs), id);
-        } catch (EmptyResultDataAccessException e) {
-            log.error("Режиссёр с id = {} не найден", id);
-            throw new NotFoundException(String.format("Режиссёр с id = %d не найден", id));
-        }
+    private Map<Integer, Integer> loadLikeCounts(Collection<Integer> filmIds) {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, like_count FROM films WHERE film_id = ANY(?)", rs -> {
+            likeCounts.put(rs.getInt("film_id"), rs.getInt("like_count"));
+        }, (Object) filmIds.toArray(new Integer[0]));
+        return likeCounts;
     }
 
-    public void addDirectorNameToFilm(Film film) {
+    private void resolveReferences(Film film) {
+        film.setMpa(referenceDataCache.getMpa(film.getMpa().getId()));
+        if (Objects.isNull(film.getGenres())) {
+            film.setGenres(new LinkedHashSet<>());
+        } else {
+            film.setGenres(film.getGenres().stream()
+                    .map(genre -> referenceDataCache.getGenre(genre.getId()))
+                    .sorted(Comparator.comparing(Genre::getId))
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+        }
         if (Objects.isNull(film.getDirectors())) {
-            return;
+            film.setDirectors(new LinkedHashSet<>());
+        } else {
+            List<Integer> ids = directorIds(film);
+            Map<Integer, Director> known = referenceDataCache.getDirectors(ids);
+            if (known.size() < ids.size()) {
+                log.error("Один из режиссёров не найден: {}", film.getDirectors());
+                throw new NotFoundException("Один из режиссёров не найден: " + film.getDirectors());
+            }
+            film.setDirectors(ids.stream()
+                    .sorted()
+                    .map(known::get)
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
         }
-        film.getDirectors().forEach(d -> d.setName(getDirectorById(d.getId()).getName()));
     }
 
-    public void updateDirectorsFilm(Film film) {
-        String sql =
-                "DELETE " +
-                        "FROM DIRECTOR_FILMS " +
-                        "WHERE FILM_ID = ?";
-
-        jdbcTemplate.update(sql, film.getId());
-        addDirectorForCurrentFilm(film);
+    private void insertFilms(List<Film> films) {
+        String sqlQuery =
+                "INSERT INTO films (name, description, release_date, duration, rating_mpa_id, like_count) " +
+                        "VALUES (?, ?, ?, ?, ?, 0)";
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sqlQuery, new String[]{"film_id"})) {
+                for (Film film : films) {
+                    stmt.setString(1, film.getName());
+                    stmt.setString(2, film.getDescription());
+                    stmt.setObject(3, film.getReleaseDate());
+                    stmt.setInt(4, film.getDuration());
+                    stmt.setInt(5, film.getMpa().getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    for (Film film : films) {
+                        keys.next();
+                        film.setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
     }
 
-    @Override
-    public List<Film> getCommonFilms(int userId, int friendId) {
-        String sqlQuery = "SELECT f.*, " +
-                "COUNT(l3.film_id) FROM films AS f " +
-                "LEFT JOIN likes AS l1 ON f.film_id = l1.film_id " +
-                "LEFT JOIN users AS u1 ON l1.user_id = u1.user_id " +
-                "LEFT JOIN likes AS l2 ON l1.film_id = l2.film_id " +
-                "LEFT JOIN users AS u2 ON l2.user_id = u2.user_id " +
-                "LEFT JOIN likes AS l3 ON f.film_id = l3.film_id " +
-                "WHERE u1.user_id = ? AND u2.user_id = ? " +
-                "GROUP BY f.film_id " +
-                "ORDER BY COUNT(l3.film_id) DESC, f.film_id";
-
-        return jdbcTemplate.query(sqlQuery, (resultSet, rowNum) -> Film.builder()
-                .id(resultSet.getInt("film_id"))
-                .name(resultSet.getString("name"))
-                .description(resultSet.getString("description"))
-                .releaseDate(Objects.requireNonNull(resultSet.getDate("release_date")).toLocalDate())
-                .duration(resultSet.getInt("duration"))
-                .mpa(getMpaById(resultSet.getInt("rating_mpa_id")))
-                .genres(getGenre(resultSet.getInt("film_id")))
-                .likes(getLikes(resultSet.getInt("film_id")))
-                .build(), userId, friendId);
+    private void replaceRows(String table, String column, int filmId, Set<Integer> current, List<Integer> wanted) {
+        List<Object[]> removed = current.stream()
+                .filter(id -> !wanted.contains(id))
+                .map(id -> new Object[]{filmId, id})
+                .collect(Collectors.toList());
+        List<Object[]> added = wanted.stream()
+                .filter(id -> !current.contains(id))
+                .map(id -> new Object[]{filmId, id})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("DELETE FROM " + table + " WHERE film_id = ? AND " + column + " = ?", removed);
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (film_id, " + column + ") VALUES (?, ?)", added);
     }
 
-    @Override
-    public List<Film> getRecommendedFilms(int userId) {
-        String sql = "SELECT films.*, m.* " +
-                "FROM films " +
-                "JOIN mpa_type AS m ON m.rating_mpa_id = films.rating_mpa_id " +
-                "WHERE films.film_id IN (SELECT DISTINCT film_id " +
-                "FROM likes " +
-                "WHERE user_id IN (SELECT user_id " +
-                "FROM (SELECT user_id, COUNT(*) matches " +
-                "FROM likes " +
-                "WHERE NOT user_id = ? " +
-                "AND film_id IN (SELECT film_id " +
-                "FROM likes " +
-                "WHERE user_id = ?) " +
-                "GROUP BY user_id " +
-                "ORDER BY count(*) DESC ) " +
-                "GROUP BY user_id " +
-                "HAVING matches = MAX(matches)) " +
-                "AND film_id NOT IN (SELECT film_id " +
-                "FROM likes " +
-                "WHERE user_id = ?))";
-
-        return jdbcTemplate.query(sql, (resultSet, rowNum) -> Film.builder()
-                .id(resultSet.getInt("film_id"))
-                .name(resultSet.getString("name"))
-                .description(resultSet.getString("description"))
-                .releaseDate(Objects.requireNonNull(resultSet.getDate("release_date")).toLocalDate())
-                .duration(resultSet.getInt("duration"))
-                .mpa(getMpaById(resultSet.getInt("rating_mpa_id")))
-                .genres(getGenre(resultSet.getInt("film_id")))
-                .likes(getLikes(resultSet.getInt("film_id")))
-                .build(), userId, userId, userId);
+    private List<Integer> genreIds(Film film) {
+        if (Objects.isNull(film.getGenres())) {
+            return List.of();
+        }
+        return film.getGenres().stream().map(Genre::getId).distinct().collect(Collectors.toList());
     }
 
-    private Map<String, Object> toMap(Film film) {
-        Map<String, Object> values = new HashMap<>();
-        values.put("name", film.getName());
-        values.put("description", film.getDescription());
-        values.put("release_date", film.getReleaseDate());
-        values.put("duration", film.getDuration());
-        values.put("rating_mpa_id", film.getMpa().getId());
-        return values;
+    private List<Integer> directorIds(Film film) {
+        if (Objects.isNull(film.getDirectors())) {
+            return List.of();
+        }
+        return film.getDirectors().stream().map(Director::getId).distinct().collect(Collectors.toList());
     }
 
     private User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
-        User user = User.builder()
+        return User.builder()
                 .id(resultSet.getInt("user_id"))
                 .email(resultSet.getString("email"))
                 .login(resultSet.getString("login"))
                 .name(resultSet.getString("name"))
                 .birthday(resultSet.getDate("birthday").toLocalDate())
                 .build();
-        user.setFriends(getFriendsByUserId(user.getId()).stream().map(User::getId).collect(Collectors.toSet()));
-        return user;
     }
 
     private Genre mapRowToGenre(ResultSet resultSet, int rowNum) throws SQLException {
@@ -593,27 +640,13 @@ public class FilmDbStorage implements FilmStorage {
         String description = rs.getString("description");
         Integer duration = rs.getInt("duration");
         LocalDate releaseDate = rs.getDate("release_date").toLocalDate();
-        Mpa mpa = getMpaById(rs.getInt("rating_mpa_id"));
-        Set<Genre> genres = getGenre(id);
-        Set<Integer> likes = getLikes(id);
-        Set<Director> directors = getFilmDirectors(id);
-
-        log.info("DAO: Метод создания объекта фильма из бд с id {}", id);
-
-        return filmBl(id, name, description, duration, releaseDate, mpa, genres, likes, directors);
-    }
-
-    private static Film filmBl(
-            Integer id,
-            String name,
-            String description,
-            Integer duration,
-            LocalDate releaseDate,
-            Mpa mpa,
-            Set genres,
-            Set likes,
-            Set directors
-    ) {
+        int mpaId = rs.getInt("rating_mpa_id");
+        Mpa mpa = rs.wasNull() ? null : Mpa.builder().id(mpaId).build();
+
+        if (log.isDebugEnabled()) {
+            log.debug("DAO: Метод создания объекта фильма из бд с id {}", id);
+        }
+
         return Film.builder()
                 .id(id)
                 .name(name)
@@ -621,9 +654,6 @@ public class FilmDbStorage implements FilmStorage {
                 .duration(duration)
                 .releaseDate(releaseDate)
                 .mpa(mpa)
-                .genres(genres)
-                .likes(likes)
-                .directors(directors)
                 .build();
     }
 
@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.storage.film.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.storage.metrics.RequestStats;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class FilmFetchExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final MeterRegistry meterRegistry;
+    private final DataSource dataSource;
+    private final Counter inlineCounter;
+
+    @Autowired
+    public FilmFetchExecutor(@Value("${filmorate.films.parallel-fetch.enabled:false}") boolean enabled,
+                             @Value("${filmorate.films.parallel-fetch.threads:4}") int threads,
+                             @Value("${filmorate.films.parallel-fetch.queue-capacity:256}") int queueCapacity,
+                             @Value("${filmorate.films.parallel-fetch.timeout:2s}") Duration timeout,
+                             MeterRegistry meterRegistry, ObjectProvider<DataSource> dataSource) {
+        this(enabled, threads, queueCapacity, timeout, meterRegistry, dataSource.getIfAvailable());
+    }
+
+    public FilmFetchExecutor(boolean enabled, int threads, int queueCapacity, Duration timeout,
+                             MeterRegistry meterRegistry) {
+        this(enabled, threads, queueCapacity, timeout, meterRegistry, (DataSource) null);
+    }
+
+    private FilmFetchExecutor(boolean enabled, int threads, int queueCapacity, Duration timeout,
+                              MeterRegistry meterRegistry, DataSource dataSource) {
+        this.executor = enabled ? newExecutor(threads, queueCapacity) : null;
+        this.timeoutNanos = timeout.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.dataSource = dataSource;
+        this.inlineCounter = Counter.builder("filmorate.films.fetch.inline")
+                .description("Загрузки, выполненные в потоке запроса из-за отсутствия свободных соединений")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("Связанные данные фильмов загружаются параллельно в {} потоках.", threads);
+        }
+    }
+
+    public int getQueryTimeoutSeconds() {
+        if (executor == null) {
+            return 0;
+        }
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(timeoutNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    public <T> Future<T> submit(String stage, Supplier<T> fetch) {
+        return submit(stage, true, fetch);
+    }
+
+    public <T> Future<T> submit(String stage, boolean parallel, Supplier<T> fetch) {
+        Timer timer = Timer.builder("filmorate.films.fetch")
+                .description("Время загрузки связанных данных фильмов по этапам")
+                .tag("stage", stage)
+                .register(meterRegistry);
+        if (!parallel || !isParallel()) {
+            return CompletableFuture.completedFuture(timer.record(fetch));
+        }
+        if (!hasIdleConnection()) {
+            inlineCounter.increment();
+            return CompletableFuture.completedFuture(timer.record(fetch));
+        }
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        Supplier<T> counted = RequestStats.propagate(fetch);
+        return executor.submit(() -> {
+            boolean previous = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+            try {
+                return timer.record(counted);
+            } finally {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(previous);
+            }
+        });
+    }
+
+    public void await(List<Future<?>> fetches) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            for (Future<?> fetch : fetches) {
+                fetch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            cancel(fetches);
+            throw new QueryTimeoutException("Связанные данные фильмов не загружены за "
+                    + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " мс.", e);
+        } catch (InterruptedException e) {
+            cancel(fetches);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Загрузка связанных данных фильмов прервана.", e);
+        } catch (ExecutionException e) {
+            cancel(fetches);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public <T> T get(Future<T> fetch) {
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Загрузка связанных данных фильмов прервана.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean isParallel() {
+        return executor != null && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private boolean hasIdleConnection() {
+        if (dataSource == null) {
+            return true;
+        }
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return true;
+            }
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            return pool == null || pool.getIdleConnections() > 0;
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void cancel(List<Future<?>> fetches) {
+        fetches.forEach(fetch -> fetch.cancel(false));
+    }
+
+    private static ThreadPoolExecutor newExecutor(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "film-fetch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.storage.film.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+@Component
+public class FilmHydrator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final FilmFetchExecutor filmFetchExecutor;
+
+    public FilmHydrator(JdbcTemplate jdbcTemplate, ReferenceDataCache referenceDataCache,
+                        FilmFetchExecutor filmFetchExecutor) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setQueryTimeout(filmFetchExecutor.getQueryTimeoutSeconds());
+        this.referenceDataCache = referenceDataCache;
+        this.filmFetchExecutor = filmFetchExecutor;
+    }
+
+    public <C extends Collection<Film>> C hydrate(C films) {
+        return hydrate(films, true);
+    }
+
+    public <C extends Collection<Film>> C hydrateOnCallerThread(C films) {
+        return hydrate(films, false);
+    }
+
+    private <C extends Collection<Film>> C hydrate(C films, boolean parallel) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Integer[] filmIds = films.stream()
+                .map(Film::getId)
+                .distinct()
+                .toArray(Integer[]::new);
+
+        Future<Map<Integer, Set<Genre>>> genreFetch =
+                filmFetchExecutor.submit("genres", parallel, () -> findGenres(filmIds));
+        Future<Map<Integer, Set<Integer>>> likeFetch =
+                filmFetchExecutor.submit("likes", parallel, () -> findLikes(filmIds));
+        Future<Map<Integer, Set<Director>>> directorFetch =
+                filmFetchExecutor.submit("directors", parallel, () -> findDirectors(filmIds));
+        filmFetchExecutor.await(List.of(genreFetch, likeFetch, directorFetch));
+        Map<Integer, Set<Genre>> genres = filmFetchExecutor.get(genreFetch);
+        Map<Integer, Set<Integer>> likes = filmFetchExecutor.get(likeFetch);
+        Map<Integer, Set<Director>> directors = filmFetchExecutor.get(directorFetch);
+
+        films.forEach(film -> {
+            if (film.getMpa() != null) {
+                film.setMpa(referenceDataCache.getMpa(film.getMpa().getId()));
+            }
+            film.setGenres(genres.getOrDefault(film.getId(), new LinkedHashSet<>()));
+            film.setLikes(likes.getOrDefault(film.getId(), new HashSet<>()));
+            film.setDirectors(directors.getOrDefault(film.getId(), new LinkedHashSet<>()));
+        });
+        return films;
+    }
+
+    private Map<Integer, Set<Genre>> findGenres(Integer[] filmIds) {
+        String sqlQuery =
+                "SELECT film_id, genre_id " +
+                        "FROM genre " +
+                        "WHERE film_id = ANY(?) " +
+                        "ORDER BY film_id, genre_id";
+
+        Map<Integer, Set<Genre>> genres = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            genres.computeIfAbsent(rs.getInt("film_id"), id -> new LinkedHashSet<>())
+                    .add(referenceDataCache.getGenre(rs.getInt("genre_id")));
+        }, (Object) filmIds);
+        return genres;
+    }
+
+    private Map<Integer, Set<Integer>> findLikes(Integer[] filmIds) {
+        String sqlQuery =
+                "SELECT like_id, film_id " +
+                        "FROM likes " +
+                        "WHERE film_id = ANY(?)";
+
+        Map<Integer, Set<Integer>> likes = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            likes.computeIfAbsent(rs.getInt("film_id"), id -> new HashSet<>())
+                    .add(rs.getInt("like_id"));
+        }, (Object) filmIds);
+        return likes;
+    }
+
+    private Map<Integer, Set<Director>> findDirectors(Integer[] filmIds) {
+        String sqlQuery =
+                "SELECT film_id, director_id " +
+                        "FROM director_films " +
+                        "WHERE film_id = ANY(?)";
+
+        Map<Integer, List<Integer>> directorIds = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            directorIds.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>())
+                    .add(rs.getInt("director_id"));
+        }, (Object) filmIds);
+
+        Map<Integer, Director> known = referenceDataCache.getDirectors(directorIds.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toSet()));
+        Map<Integer, Set<Director>> directors = new HashMap<>();
+        directorIds.forEach((filmId, ids) -> directors.put(filmId, ids.stream()
+                .map(known::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new))));
+        return directors;
+    }
+}
@@ -50,19 +50,13 @@ public class GenreDbStorage implements GenreStorage {
     }
 
     public Set<Genre> getGenreForCurrentFilm(int id) {
-        Set<Genre> genreSet = new TreeSet<>();
-
-        SqlRowSet genreRows = jdbcTemplate.queryForRowSet(
-                "SELECT id, film_id, genre_id " +
-                        "FROM genre " +
-                        "ORDER BY genre_id ASC");
+        String sqlQuery =
+                "SELECT gt.genre_id, gt.name " +
+                        "FROM genre AS g " +
+                        "JOIN genre_type AS gt ON g.genre_id = gt.genre_id " +
+                        "WHERE g.film_id = ?";
 
-        while (genreRows.next()) {
-            if (genreRows.getLong("film_id") == id) {
-                genreSet.add(getGenreForId(genreRows.getInt("genre_id")));
-            }
-        }
-        return genreSet;
+        return new TreeSet<>(jdbcTemplate.query(sqlQuery, this::mapRowToGenre, id));
     }
 
     public void addGenresForCurrentFilm(Film film) {
@@ -0,0 +1,368 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
+
+@Component
+public class FilmSearchIndex {
+
+    public static final int EXACT = 3;
+    public static final int PARTIAL = 2;
+    public static final int FUZZY = 1;
+
+    private static final int MAX_GRAM = 3;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_RELEVANCE = 127;
+    private static final int MAX_LIKES = (1 << 24) - 1;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<SortedIntSet> titlePostings = new ArrayList<>();
+    private final List<SortedIntSet> directorPostings = new ArrayList<>();
+    private final Map<String, SortedIntSet> grams = new HashMap<>();
+    private final Map<String, SortedIntSet> deletions = new HashMap<>();
+    private final Map<Integer, int[]> directorTerms = new HashMap<>();
+    private final Map<Integer, SortedIntSet> directorFilms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private SortedIntSet films = new SortedIntSet();
+    private int filmCapacity;
+    private volatile boolean loaded;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void loadIfAbsent(Consumer<FilmSearchIndex> loader) {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                reload(loader);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reload(Consumer<FilmSearchIndex> loader) {
+        lock.writeLock().lock();
+        try {
+            termIds.clear();
+            terms.clear();
+            titlePostings.clear();
+            directorPostings.clear();
+            grams.clear();
+            deletions.clear();
+            directorTerms.clear();
+            directorFilms.clear();
+            films = new SortedIntSet();
+            loader.accept(this);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putFilm(int filmId, String title, Collection<Integer> directorIds) {
+        lock.writeLock().lock();
+        try {
+            films.add(filmId);
+            ensureFilmCapacity(filmId);
+            for (String token : tokenize(title)) {
+                titlePostings.get(termId(token)).add(filmId);
+            }
+            directorIds.forEach(directorId -> linkDirector(filmId, directorId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId, String title, Collection<Integer> directorIds) {
+        lock.writeLock().lock();
+        try {
+            films.remove(filmId);
+            for (String token : tokenize(title)) {
+                Integer termId = termIds.get(token);
+                if (termId != null) {
+                    titlePostings.get(termId).remove(filmId);
+                }
+            }
+            directorIds.forEach(directorId -> {
+                SortedIntSet linked = directorFilms.get(directorId);
+                if (linked != null) {
+                    linked.remove(filmId);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void linkDirector(int filmId, int directorId) {
+        lock.writeLock().lock();
+        try {
+            ensureFilmCapacity(filmId);
+            directorFilms.computeIfAbsent(directorId, id -> new SortedIntSet()).add(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDirector(int directorId, String name) {
+        lock.writeLock().lock();
+        try {
+            unindexDirectorName(directorId);
+            int[] ids = tokenize(name).stream().mapToInt(this::termId).distinct().toArray();
+            for (int termId : ids) {
+                directorPostings.get(termId).add(directorId);
+            }
+            directorTerms.put(directorId, ids);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDirector(int directorId) {
+        lock.writeLock().lock();
+        try {
+            unindexDirectorName(directorId);
+            directorTerms.remove(directorId);
+            directorFilms.remove(directorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Integer> search(String query, Set<SearchField> fields, IntUnaryOperator likeCount) {
+        List<String> tokens = tokenize(query);
+        lock.readLock().lock();
+        try {
+            return search(tokens, fields, likeCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> search(List<String> tokens, Set<SearchField> fields, IntUnaryOperator likeCount) {
+        int[] tokenTiers = new int[filmCapacity];
+        int[] matched = tokens.isEmpty() ? films.toArray() : null;
+        int[] relevance = tokens.isEmpty() ? new int[matched.length] : null;
+        int size = tokens.isEmpty() ? matched.length : 0;
+        for (String token : tokens) {
+            IntList touched = markFilms(token, fields, tokenTiers);
+            if (matched == null) {
+                matched = touched.values;
+                size = touched.size;
+                relevance = new int[size];
+                for (int i = 0; i < size; i++) {
+                    relevance[i] = tokenTiers[matched[i]];
+                }
+            } else {
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    int tier = tokenTiers[matched[i]];
+                    if (tier > 0) {
+                        matched[kept] = matched[i];
+                        relevance[kept++] = relevance[i] + tier;
+                    }
+                }
+                size = kept;
+            }
+            for (int i = 0; i < touched.size; i++) {
+                tokenTiers[touched.values[i]] = 0;
+            }
+            if (size == 0) {
+                break;
+            }
+        }
+
+        long[] ranked = new long[size];
+        for (int i = 0; i < size; i++) {
+            ranked[i] = rankKey(matched[i], relevance[i], likeCount.applyAsInt(matched[i]));
+        }
+        Arrays.sort(ranked);
+        List<Integer> filmIds = new ArrayList<>(size);
+        for (long key : ranked) {
+            filmIds.add((int) key);
+        }
+        return filmIds;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private IntList markFilms(String token, Set<SearchField> fields, int[] tokenTiers) {
+        IntList touched = new IntList();
+        IntConsumer mark = filmId -> {
+            if (tokenTiers[filmId] == 0) {
+                touched.add(filmId);
+            }
+        };
+        matchTerms(token).forEach((termId, tier) -> {
+            IntConsumer markTier = mark.andThen(filmId -> tokenTiers[filmId] = Math.max(tokenTiers[filmId], tier));
+            if (fields.contains(SearchField.TITLE)) {
+                titlePostings.get(termId).forEach(markTier);
+            }
+            if (fields.contains(SearchField.DIRECTOR)) {
+                directorPostings.get(termId).forEach(directorId -> {
+                    SortedIntSet linked = directorFilms.get(directorId);
+                    if (linked != null) {
+                        linked.forEach(markTier);
+                    }
+                });
+            }
+        });
+        return touched;
+    }
+
+    private Map<Integer, Integer> matchTerms(String token) {
+        Map<Integer, Integer> matched = new HashMap<>();
+        Integer exact = termIds.get(token);
+        if (exact != null) {
+            matched.put(exact, EXACT);
+        }
+        SortedIntSet candidates = substringCandidates(token);
+        if (candidates != null) {
+            candidates.forEach(termId -> {
+                if (terms.get(termId).contains(token)) {
+                    matched.putIfAbsent(termId, PARTIAL);
+                }
+            });
+        }
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            for (String variant : deletes(token)) {
+                Integer shorter = termIds.get(variant);
+                if (shorter != null) {
+                    matched.putIfAbsent(shorter, FUZZY);
+                }
+                matchDeletions(token, variant, matched);
+            }
+            matchDeletions(token, token, matched);
+        }
+        return matched;
+    }
+
+    private void matchDeletions(String token, String variant, Map<Integer, Integer> matched) {
+        SortedIntSet similar = deletions.get(variant);
+        if (similar != null) {
+            similar.forEach(termId -> {
+                if (!matched.containsKey(termId) && withinOneEdit(token, terms.get(termId))) {
+                    matched.put(termId, FUZZY);
+                }
+            });
+        }
+    }
+
+    private SortedIntSet substringCandidates(String token) {
+        if (token.length() <= MAX_GRAM) {
+            return grams.get(token);
+        }
+        SortedIntSet candidates = null;
+        for (int i = 0; i + MAX_GRAM <= token.length(); i++) {
+            SortedIntSet gramTerms = grams.get(token.substring(i, i + MAX_GRAM));
+            if (gramTerms == null) {
+                return null;
+            }
+            candidates = candidates == null ? gramTerms : SortedIntSet.intersection(candidates, gramTerms);
+        }
+        return candidates;
+    }
+
+    private int termId(String term) {
+        Integer existing = termIds.get(term);
+        if (existing != null) {
+            return existing;
+        }
+        int termId = terms.size();
+        termIds.put(term, termId);
+        terms.add(term);
+        titlePostings.add(new SortedIntSet());
+        directorPostings.add(new SortedIntSet());
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= term.length(); i++) {
+                grams.computeIfAbsent(term.substring(i, i + length), gram -> new SortedIntSet()).add(termId);
+            }
+        }
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            for (String variant : deletes(term)) {
+                deletions.computeIfAbsent(variant, v -> new SortedIntSet()).add(termId);
+            }
+        }
+        return termId;
+    }
+
+    private void ensureFilmCapacity(int filmId) {
+        filmCapacity = Math.max(filmCapacity, filmId + 1);
+    }
+
+    private void unindexDirectorName(int directorId) {
+        int[] previous = directorTerms.get(directorId);
+        if (previous != null) {
+            for (int termId : previous) {
+                directorPostings.get(termId).remove(directorId);
+            }
+        }
+    }
+
+    private static Set<String> deletes(String term) {
+        Set<String> variants = new HashSet<>();
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    private static boolean withinOneEdit(String a, String b) {
+        int lengthDiff = a.length() - b.length();
+        if (Math.abs(lengthDiff) > 1) {
+            return false;
+        }
+        if (lengthDiff == 0) {
+            int first = -1;
+            int mismatches = 0;
+            for (int i = 0; i < a.length(); i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    if (++mismatches == 1) {
+                        first = i;
+                    }
+                }
+            }
+            return mismatches <= 1 || (mismatches == 2 && first + 1 < a.length()
+                    && a.charAt(first) == b.charAt(first + 1) && a.charAt(first + 1) == b.charAt(first));
+        }
+        String longer = lengthDiff > 0 ? a : b;
+        String shorter = lengthDiff > 0 ? b : a;
+        int i = 0;
+        while (i < shorter.length() && shorter.charAt(i) == longer.charAt(i)) {
+            i++;
+        }
+        return shorter.regionMatches(i, longer, i + 1, shorter.length() - i);
+    }
+
+    private static long rankKey(int filmId, int relevance, int likes) {
+        long relevanceRank = MAX_RELEVANCE - Math.min(relevance, MAX_RELEVANCE);
+        long likesRank = MAX_LIKES - Math.min(Math.max(likes, 0), MAX_LIKES);
+        return relevanceRank << 56 | likesRank << 32 | filmId;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Component
+public class FriendIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final Map<Integer, SortedIntSet> friends = new HashMap<>();
+    private final Map<Integer, SortedIntSet> followers = new HashMap<>();
+    private boolean loaded;
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized void loadIfAbsent(Consumer<FriendIndex> loader) {
+        if (!loaded) {
+            reload(loader);
+        }
+    }
+
+    public synchronized void reload(Consumer<FriendIndex> loader) {
+        friends.clear();
+        followers.clear();
+        loader.accept(this);
+        loaded = true;
+    }
+
+    public synchronized void add(int userId, int friendId) {
+        friends.computeIfAbsent(userId, id -> new SortedIntSet()).add(friendId);
+        followers.computeIfAbsent(friendId, id -> new SortedIntSet()).add(userId);
+    }
+
+    public synchronized void remove(int userId, int friendId) {
+        SortedIntSet userFriends = friends.get(userId);
+        if (userFriends != null) {
+            userFriends.remove(friendId);
+        }
+        SortedIntSet friendFollowers = followers.get(friendId);
+        if (friendFollowers != null) {
+            friendFollowers.remove(userId);
+        }
+    }
+
+    public synchronized void removeUser(int userId) {
+        SortedIntSet userFriends = friends.remove(userId);
+        if (userFriends != null) {
+            userFriends.forEach(friendId -> followers.get(friendId).remove(userId));
+        }
+        SortedIntSet userFollowers = followers.remove(userId);
+        if (userFollowers != null) {
+            userFollowers.forEach(followerId -> friends.get(followerId).remove(userId));
+        }
+    }
+
+    public synchronized int[] getFriends(int userId) {
+        SortedIntSet userFriends = friends.get(userId);
+        return userFriends == null ? NONE : userFriends.toArray();
+    }
+
+    public synchronized int[] getCommonFriends(int userId, int otherId) {
+        SortedIntSet userFriends = friends.get(userId);
+        SortedIntSet otherFriends = friends.get(otherId);
+        if (userFriends == null || otherFriends == null) {
+            return NONE;
+        }
+        return SortedIntSet.intersection(userFriends, otherFriends).toArray();
+    }
+}
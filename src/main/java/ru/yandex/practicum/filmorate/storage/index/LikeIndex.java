@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Component
+public class LikeIndex {
+
+    public static final int NEIGHBOURS = 20;
+
+    private final Map<Integer, SortedIntSet> userLikes = new HashMap<>();
+    private final Map<Integer, SortedIntSet> filmLikers = new HashMap<>();
+    private final Map<Integer, Recommendation> recommendations = new HashMap<>();
+    private final Map<Integer, Set<Integer>> dependents = new HashMap<>();
+    private int[] overlaps = new int[0];
+    private boolean loaded;
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized void loadIfAbsent(Consumer<LikeIndex> loader) {
+        if (!loaded) {
+            reload(loader);
+        }
+    }
+
+    public synchronized void reload(Consumer<LikeIndex> loader) {
+        userLikes.clear();
+        filmLikers.clear();
+        recommendations.clear();
+        dependents.clear();
+        loader.accept(this);
+        loaded = true;
+    }
+
+    public synchronized void put(int filmId, int userId) {
+        userLikes.computeIfAbsent(userId, id -> new SortedIntSet()).add(filmId);
+        filmLikers.computeIfAbsent(filmId, id -> new SortedIntSet()).add(userId);
+        if (userId >= overlaps.length) {
+            overlaps = Arrays.copyOf(overlaps, Math.max(userId + 1, overlaps.length + (overlaps.length >> 1)));
+        }
+    }
+
+    public synchronized void like(int filmId, int userId) {
+        put(filmId, userId);
+        evict(userId);
+        filmLikers.get(filmId).forEach(this::evict);
+        Set<Integer> users = dependents.get(userId);
+        if (users != null) {
+            new ArrayList<>(users).forEach(this::evict);
+        }
+    }
+
+    public synchronized void unlike(int filmId, int userId) {
+        SortedIntSet liked = userLikes.get(userId);
+        SortedIntSet likers = filmLikers.get(filmId);
+        if (liked == null || likers == null || !liked.remove(filmId)) {
+            return;
+        }
+        likers.remove(userId);
+        evict(userId);
+        likers.forEach(this::evict);
+        evictOverlapping(liked);
+    }
+
+    public synchronized void removeUser(int userId) {
+        SortedIntSet liked = userLikes.remove(userId);
+        evict(userId);
+        if (liked != null) {
+            liked.forEach(filmId -> filmLikers.get(filmId).remove(userId));
+            evictOverlapping(liked);
+        }
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        SortedIntSet likers = filmLikers.remove(filmId);
+        if (likers != null) {
+            likers.forEach(userId -> userLikes.get(userId).remove(filmId));
+            recommendations.clear();
+            dependents.clear();
+        }
+    }
+
+    public synchronized List<Integer> getRecommendations(int userId) {
+        Recommendation cached = recommendations.get(userId);
+        if (cached == null) {
+            cached = compute(userId);
+            recommendations.put(userId, cached);
+            for (int neighbour : cached.neighbours) {
+                dependents.computeIfAbsent(neighbour, id -> new HashSet<>()).add(userId);
+            }
+        }
+        return cached.films;
+    }
+
+    public synchronized List<Integer> getCommonFilms(int userId, int otherId) {
+        SortedIntSet liked = userLikes.get(userId);
+        SortedIntSet otherLiked = userLikes.get(otherId);
+        if (liked == null || otherLiked == null) {
+            return List.of();
+        }
+        return Arrays.stream(SortedIntSet.intersection(liked, otherLiked).toArray())
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer filmId) -> filmLikers.get(filmId).size()).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public synchronized List<Integer> recommend(int userId) {
+        return compute(userId).films;
+    }
+
+    public synchronized int getCachedCount() {
+        return recommendations.size();
+    }
+
+    private Recommendation compute(int userId) {
+        SortedIntSet liked = userLikes.get(userId);
+        if (liked == null || liked.isEmpty()) {
+            return new Recommendation(new int[0], List.of());
+        }
+        IntList touched = new IntList();
+        liked.forEach(filmId -> filmLikers.get(filmId).forEach(other -> {
+            if (other != userId && overlaps[other]++ == 0) {
+                touched.add(other);
+            }
+        }));
+
+        PriorityQueue<Neighbour> nearest = new PriorityQueue<>(Neighbour.WEAKEST_FIRST);
+        for (int i = 0; i < touched.size; i++) {
+            int other = touched.values[i];
+            int common = overlaps[other];
+            overlaps[other] = 0;
+            nearest.add(new Neighbour(other, (double) common / (liked.size() + userLikes.get(other).size() - common)));
+            if (nearest.size() > NEIGHBOURS) {
+                nearest.poll();
+            }
+        }
+
+        List<Neighbour> neighbours = new ArrayList<>(nearest);
+        neighbours.sort(Comparator.comparingInt(neighbour -> neighbour.userId));
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Neighbour neighbour : neighbours) {
+            userLikes.get(neighbour.userId).forEach(filmId -> {
+                if (!liked.contains(filmId)) {
+                    scores.merge(filmId, neighbour.similarity, Double::sum);
+                }
+            });
+        }
+        List<Integer> films = scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableList());
+        return new Recommendation(neighbours.stream().mapToInt(neighbour -> neighbour.userId).toArray(), films);
+    }
+
+    private void evictOverlapping(SortedIntSet films) {
+        films.forEach(filmId -> filmLikers.get(filmId).forEach(this::evict));
+    }
+
+    private void evict(int userId) {
+        Recommendation cached = recommendations.remove(userId);
+        if (cached == null) {
+            return;
+        }
+        for (int neighbour : cached.neighbours) {
+            Set<Integer> users = dependents.get(neighbour);
+            if (users != null) {
+                users.remove(userId);
+                if (users.isEmpty()) {
+                    dependents.remove(neighbour);
+                }
+            }
+        }
+    }
+
+    private static final class Recommendation {
+        private final int[] neighbours;
+        private final List<Integer> films;
+
+        private Recommendation(int[] neighbours, List<Integer> films) {
+            this.neighbours = neighbours;
+            this.films = films;
+        }
+    }
+
+    private static final class Neighbour {
+        private static final Comparator<Neighbour> WEAKEST_FIRST = Comparator
+                .comparingDouble((Neighbour neighbour) -> neighbour.similarity)
+                .thenComparing(Comparator.comparingInt((Neighbour neighbour) -> neighbour.userId).reversed());
+
+        private final int userId;
+        private final double similarity;
+
+        private Neighbour(int userId, double similarity) {
+            this.userId = userId;
+            this.similarity = similarity;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class PopularityIndex {
+
+    public static final int ANY = -1;
+
+    private static final Comparator<Entry> BY_POPULARITY = Comparator
+            .comparingInt((Entry e) -> e.likeCount).reversed()
+            .thenComparingInt(e -> e.filmId);
+
+    private final Map<Integer, Entry> films = new HashMap<>();
+    private final Map<Long, NavigableSet<Entry>> rankings = new HashMap<>();
+    private boolean loaded;
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized void loadIfAbsent(Consumer<PopularityIndex> loader) {
+        if (!loaded) {
+            reload(loader);
+        }
+    }
+
+    public synchronized void reload(Consumer<PopularityIndex> loader) {
+        films.clear();
+        rankings.clear();
+        loader.accept(this);
+        loaded = true;
+    }
+
+    public synchronized void put(int filmId, int year, Collection<Integer> genreIds, int likeCount) {
+        Entry previous = films.remove(filmId);
+        if (previous != null) {
+            unlink(previous);
+        }
+        Entry entry = new Entry(filmId, year, genreIds.stream().mapToInt(Integer::intValue).distinct().toArray(),
+                likeCount);
+        films.put(filmId, entry);
+        link(entry);
+    }
+
+    public synchronized void update(int filmId, int year, Collection<Integer> genreIds) {
+        Entry previous = films.get(filmId);
+        put(filmId, year, genreIds, previous == null ? 0 : previous.likeCount);
+    }
+
+    public synchronized void remove(int filmId) {
+        Entry previous = films.remove(filmId);
+        if (previous != null) {
+            unlink(previous);
+        }
+    }
+
+    public synchronized void refreshLikes(Collection<Integer> filmIds,
+                                          Function<Collection<Integer>, Map<Integer, Integer>> loader) {
+        if (!loaded || filmIds.isEmpty()) {
+            return;
+        }
+        loader.apply(filmIds).forEach(this::setLikes);
+    }
+
+    private void setLikes(int filmId, int likeCount) {
+        Entry previous = films.get(filmId);
+        if (previous == null || previous.likeCount == likeCount) {
+            return;
+        }
+        unlink(previous);
+        Entry entry = new Entry(filmId, previous.year, previous.genreIds, likeCount);
+        films.put(filmId, entry);
+        link(entry);
+    }
+
+    public synchronized int getLikeCount(int filmId) {
+        Entry entry = films.get(filmId);
+        return entry == null ? 0 : entry.likeCount;
+    }
+
+    public synchronized List<Integer> top(int count, int genreId, int year) {
+        NavigableSet<Entry> ranking = rankings.get(key(genreId, year));
+        if (ranking == null || count <= 0) {
+            return List.of();
+        }
+        List<Integer> filmIds = new ArrayList<>(Math.min(count, ranking.size()));
+        for (Entry entry : ranking) {
+            if (filmIds.size() >= count) {
+                break;
+            }
+            filmIds.add(entry.filmId);
+        }
+        return filmIds;
+    }
+
+    private void link(Entry entry) {
+        keys(entry).forEach(key -> rankings.computeIfAbsent(key, k -> new TreeSet<>(BY_POPULARITY)).add(entry));
+    }
+
+    private void unlink(Entry entry) {
+        keys(entry).forEach(key -> {
+            NavigableSet<Entry> ranking = rankings.get(key);
+            if (ranking != null) {
+                ranking.remove(entry);
+                if (ranking.isEmpty()) {
+                    rankings.remove(key);
+                }
+            }
+        });
+    }
+
+    private static List<Long> keys(Entry entry) {
+        List<Long> keys = new ArrayList<>(2 + entry.genreIds.length * 2);
+        keys.add(key(ANY, ANY));
+        keys.add(key(ANY, entry.year));
+        for (int genreId : entry.genreIds) {
+            keys.add(key(genreId, ANY));
+            keys.add(key(genreId, entry.year));
+        }
+        return keys;
+    }
+
+    private static long key(int genreId, int year) {
+        return ((long) genreId << 32) | (year & 0xffffffffL);
+    }
+
+    private static final class Entry {
+        private final int filmId;
+        private final int year;
+        private final int[] genreIds;
+        private final int likeCount;
+
+        private Entry(int filmId, int year, int[] genreIds, int likeCount) {
+            this.filmId = filmId;
+            this.year = year;
+            this.genreIds = genreIds;
+            this.likeCount = likeCount;
+        }
+    }
+}
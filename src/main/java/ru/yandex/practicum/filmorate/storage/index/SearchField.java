@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+public enum SearchField {
+
+    TITLE,
+    DIRECTOR;
+
+    public static Set<SearchField> parse(String by) {
+        Set<SearchField> fields = EnumSet.noneOf(SearchField.class);
+        for (String value : by.split(",")) {
+            String name = value.trim().toUpperCase(Locale.ROOT);
+            try {
+                fields.add(SearchField.valueOf(name));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Некорректный параметр поиска by: " + by);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public final class SortedIntSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+    private int size;
+
+    public SortedIntSet() {
+        values = EMPTY;
+    }
+
+    private SortedIntSet(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    public boolean add(int value) {
+        if (size == 0 || value > values[size - 1]) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+            return true;
+        }
+        int position = Arrays.binarySearch(values, 0, size, value);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int position = Arrays.binarySearch(values, 0, size, value);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(values, position + 1, values, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(values[i]);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public static SortedIntSet intersection(SortedIntSet first, SortedIntSet second) {
+        int[] result = new int[Math.min(first.size, second.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.size && j < second.size) {
+            int a = first.values[i];
+            int b = second.values[j];
+            if (a == b) {
+                result[count++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return new SortedIntSet(result, count);
+    }
+
+    public static int intersectionSize(SortedIntSet first, SortedIntSet second) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.size && j < second.size) {
+            int a = first.values[i];
+            int b = second.values[j];
+            if (a == b) {
+                count++;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1) + 4));
+        }
+    }
+}
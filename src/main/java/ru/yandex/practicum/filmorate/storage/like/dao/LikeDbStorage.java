@@ -2,7 +2,6 @@ package ru.yandex.practicum.filmorate.storage.like.dao;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
 
@@ -16,16 +15,11 @@ public class LikeDbStorage implements LikeStorage {
     private final JdbcTemplate jdbcTemplate;
 
     public Set<Integer> getLikesForCurrentFilm(int id) {
-        Set<Integer> likes = new HashSet<>();
-        SqlRowSet likeRows = jdbcTemplate.queryForRowSet(
-                "SELECT like_id, film_id, user_id " +
-                        "FROM likes");
+        String sqlQuery =
+                "SELECT like_id " +
+                        "FROM likes " +
+                        "WHERE film_id = ?";
 
-        while (likeRows.next()) {
-            if (likeRows.getInt("film_id") == id) {
-                likes.add(likeRows.getInt("like_id"));
-            }
-        }
-        return likes;
+        return new HashSet<>(jdbcTemplate.queryForList(sqlQuery, Integer.class, id));
     }
 }
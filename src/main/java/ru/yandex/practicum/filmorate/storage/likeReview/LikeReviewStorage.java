@@ -1,5 +1,9 @@
 package ru.yandex.practicum.filmorate.storage.likeReview;
 
+import ru.yandex.practicum.filmorate.model.ReviewReaction;
+
+import java.util.List;
+
 public interface LikeReviewStorage {
 
     void createLike(int id, int userId);
@@ -9,4 +13,6 @@ public interface LikeReviewStorage {
     void deleteLike(int id, int userId);
 
     void deleteDislike(int id, int userId);
+
+    List<ReviewReaction> applyReactions(List<ReviewReaction> reactions);
 }
@@ -1,53 +1,173 @@
 package ru.yandex.practicum.filmorate.storage.likeReview.dao;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.ReviewReaction;
 import ru.yandex.practicum.filmorate.storage.likeReview.LikeReviewStorage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class LikeReviewDbStorage implements LikeReviewStorage {
 
+    private static final String LOCK_REACTION =
+            "SELECT r.review_id, lr.is_positive " +
+                    "FROM reviews AS r " +
+                    "LEFT JOIN like_review AS lr ON lr.review_id = r.review_id AND lr.user_id = ? " +
+                    "WHERE r.review_id = ? " +
+                    "FOR UPDATE";
+    private static final String MERGE_REACTION =
+            "MERGE INTO like_review " +
+                    "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS BOOLEAN))) " +
+                    "AS v (review_id, user_id, is_positive) " +
+                    "ON like_review.review_id = v.review_id AND like_review.user_id = v.user_id " +
+                    "WHEN MATCHED AND like_review.is_positive <> v.is_positive " +
+                    "THEN UPDATE SET is_positive = v.is_positive " +
+                    "WHEN NOT MATCHED THEN INSERT (review_id, user_id, is_positive) " +
+                    "VALUES (v.review_id, v.user_id, v.is_positive)";
+    private static final String DELETE_REACTION = "DELETE FROM like_review WHERE review_id = ? AND user_id = ?";
+    private static final String CHANGE_USEFUL = "UPDATE reviews SET useful = useful + ? WHERE review_id = ?";
+
     private final JdbcTemplate jdbcTemplate;
 
     @Override
+    @Transactional
     public void createLike(int id, int userId) {
-        String sqlQuery = "INSERT " +
-                "INTO like_review (review_id, user_id, is_positive) " +
-                "VALUES (?, ?, TRUE)";
-
-        jdbcTemplate.update(sqlQuery, id, userId);
+        writeReaction(id, userId, lockReaction(id, userId), Boolean.TRUE);
     }
 
     @Override
+    @Transactional
     public void createDislike(int id, int userId) {
-        String sqlQuery = "INSERT " +
-                "INTO like_review (review_id, user_id, is_positive) " +
-                "VALUES (?, ?, FALSE)";
-
-        jdbcTemplate.update(sqlQuery, id, userId);
+        writeReaction(id, userId, lockReaction(id, userId), Boolean.FALSE);
     }
 
     @Override
+    @Transactional
     public void deleteLike(int id, int userId) {
-        String sqlQuery = "DELETE " +
-                "FROM like_review " +
-                "WHERE review_id = ? " +
-                "AND user_id = ? " +
-                "AND is_positive = TRUE";
-
-        jdbcTemplate.update(sqlQuery, id, userId);
+        Boolean current = lockReaction(id, userId);
+        if (Boolean.TRUE.equals(current)) {
+            writeReaction(id, userId, current, null);
+        }
     }
 
     @Override
+    @Transactional
     public void deleteDislike(int id, int userId) {
-        String sqlQuery = "DELETE " +
-                "FROM like_review " +
-                "WHERE review_id = ? " +
-                "AND user_id = ? " +
-                "AND is_positive = FALSE";
+        Boolean current = lockReaction(id, userId);
+        if (Boolean.FALSE.equals(current)) {
+            writeReaction(id, userId, current, null);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<ReviewReaction> applyReactions(List<ReviewReaction> reactions) {
+        Map<List<Integer>, ReviewReaction> latest = new LinkedHashMap<>();
+        for (ReviewReaction reaction : reactions) {
+            List<Integer> key = List.of(reaction.getReviewId(), reaction.getUserId());
+            latest.remove(key);
+            latest.put(key, reaction);
+        }
+        if (latest.isEmpty()) {
+            return List.of();
+        }
+        Integer[] reviewIds = ids(latest.values().stream().map(ReviewReaction::getReviewId));
+        Integer[] userIds = ids(latest.values().stream().map(ReviewReaction::getUserId));
+        checkExist(reviewIds, jdbcTemplate.queryForList("SELECT review_id FROM reviews " +
+                        "WHERE review_id = ANY(?) ORDER BY review_id FOR UPDATE", Integer.class, (Object) reviewIds),
+                "Отзывы не найдены: ");
+        checkExist(userIds, jdbcTemplate.queryForList("SELECT user_id FROM users WHERE user_id = ANY(?)",
+                Integer.class, (Object) userIds), "Пользователи не найдены: ");
+
+        Map<List<Integer>, Boolean> current = new HashMap<>();
+        jdbcTemplate.query("SELECT review_id, user_id, is_positive FROM like_review " +
+                        "WHERE review_id = ANY(?) AND user_id = ANY(?)",
+                rs -> {
+                    current.put(List.of(rs.getInt("review_id"), rs.getInt("user_id")),
+                            rs.getBoolean("is_positive"));
+                }, (Object) reviewIds, (Object) userIds);
+
+        List<ReviewReaction> applied = new ArrayList<>();
+        List<Object[]> merged = new ArrayList<>();
+        List<Object[]> removed = new ArrayList<>();
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        latest.forEach((key, reaction) -> {
+            Boolean before = current.get(key);
+            if (Objects.equals(before, reaction.getIsPositive())) {
+                return;
+            }
+            applied.add(reaction);
+            if (reaction.getIsPositive() == null) {
+                removed.add(new Object[]{reaction.getReviewId(), reaction.getUserId()});
+            } else {
+                merged.add(new Object[]{reaction.getReviewId(), reaction.getUserId(), reaction.getIsPositive()});
+            }
+            deltas.merge(reaction.getReviewId(), score(reaction.getIsPositive()) - score(before), Integer::sum);
+        });
+        jdbcTemplate.batchUpdate(MERGE_REACTION, merged);
+        jdbcTemplate.batchUpdate(DELETE_REACTION, removed);
+        deltas.values().removeIf(delta -> delta == 0);
+        jdbcTemplate.batchUpdate(CHANGE_USEFUL, deltas.entrySet().stream()
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .collect(Collectors.toList()));
+        log.info("Пакет реакций на отзывы: получено {}, применено {}.", reactions.size(), applied.size());
+        return applied;
+    }
+
+    private Boolean lockReaction(int id, int userId) {
+        return jdbcTemplate.query(LOCK_REACTION, rs -> {
+            if (!rs.next()) {
+                throw new NotFoundException("Отзыв не найден.");
+            }
+            return rs.getObject("is_positive", Boolean.class);
+        }, userId, id);
+    }
+
+    private void writeReaction(int id, int userId, Boolean current, Boolean wanted) {
+        if (Objects.equals(current, wanted)) {
+            return;
+        }
+        if (wanted == null) {
+            jdbcTemplate.update(DELETE_REACTION, id, userId);
+        } else {
+            jdbcTemplate.update(MERGE_REACTION, id, userId, wanted);
+        }
+        jdbcTemplate.update(CHANGE_USEFUL, score(wanted) - score(current), id);
+    }
+
+    private static int score(Boolean isPositive) {
+        if (isPositive == null) {
+            return 0;
+        }
+        return isPositive ? 1 : -1;
+    }
+
+    private static Integer[] ids(Stream<Integer> ids) {
+        return ids.collect(Collectors.toCollection(TreeSet::new)).toArray(new Integer[0]);
+    }
 
-        jdbcTemplate.update(sqlQuery, id, userId);
+    private static void checkExist(Integer[] wanted, List<Integer> found, String message) {
+        Set<Integer> missing = new TreeSet<>(List.of(wanted));
+        missing.removeAll(found);
+        if (!missing.isEmpty()) {
+            throw new NotFoundException(message + missing);
+        }
     }
 }
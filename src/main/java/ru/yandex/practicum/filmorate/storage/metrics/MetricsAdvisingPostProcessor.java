@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+public class MetricsAdvisingPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    public MetricsAdvisingPostProcessor(Pointcut pointcut, Advice advice) {
+        this.advisor = new DefaultPointcutAdvisor(pointcut, advice);
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public final class RequestStats {
+
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicInteger rows = new AtomicInteger();
+
+    private RequestStats() {
+    }
+
+    public static RequestStats start() {
+        RequestStats stats = new RequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public static void countQuery() {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.queries.incrementAndGet();
+        }
+    }
+
+    public static void countRows(int count) {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows.addAndGet(count);
+        }
+    }
+
+    public static <T> Supplier<T> propagate(Supplier<T> action) {
+        RequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return action;
+        }
+        return () -> {
+            RequestStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                return action.get();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public int getQueries() {
+        return queries.get();
+    }
+
+    public int getRows() {
+        return rows.get();
+    }
+}
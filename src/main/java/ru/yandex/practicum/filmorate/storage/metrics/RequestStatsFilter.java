@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class RequestStatsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public RequestStatsFilter(MeterRegistry meterRegistry, double sampleRate, Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        RequestStats stats = RequestStats.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestStats.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            DistributionSummary.builder("filmorate.http.queries")
+                    .description("Число SQL-запросов на один HTTP-запрос")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                    .register(meterRegistry)
+                    .record(stats.getQueries());
+            logSummary(request, response, uri, stats, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    private void logSummary(HttpServletRequest request, HttpServletResponse response, String uri,
+                            RequestStats stats, long elapsedNanos) {
+        boolean slow = elapsedNanos >= slowThresholdNanos;
+        if (slow || response.getStatus() >= 500) {
+            log.warn("{} {} [{}] status={} time={}ms queries={} rows={}", request.getMethod(),
+                    request.getRequestURI(), uri, response.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), stats.getQueries(), stats.getRows());
+        } else if (log.isInfoEnabled() && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            log.info("{} {} [{}] status={} time={}ms queries={} rows={}", request.getMethod(),
+                    request.getRequestURI(), uri, response.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), stats.getQueries(), stats.getRows());
+        }
+    }
+}
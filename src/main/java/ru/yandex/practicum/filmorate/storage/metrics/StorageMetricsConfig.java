@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.Set;
+
+@Configuration
+public class StorageMetricsConfig {
+
+    private static final String STORAGE_PACKAGE = "ru.yandex.practicum.filmorate.storage.";
+    private static final Set<String> JDBC_CALLS = Set.of(
+            "query", "queryForObject", "queryForList", "queryForMap", "queryForRowSet", "queryForStream",
+            "update", "batchUpdate", "execute", "call");
+
+    @Bean
+    public static MetricsAdvisingPostProcessor storageMetricsPostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new MetricsAdvisingPostProcessor(new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return targetClass.getName().startsWith(STORAGE_PACKAGE)
+                        && targetClass.getPackageName().endsWith(".dao")
+                        && targetClass.getSimpleName().endsWith("Storage")
+                        && Modifier.isPublic(method.getModifiers())
+                        && method.getDeclaringClass() != Object.class;
+            }
+        }, new StorageMetricsInterceptor(meterRegistry));
+    }
+
+    @Bean
+    public static MetricsAdvisingPostProcessor queryCountPostProcessor() {
+        return new MetricsAdvisingPostProcessor(new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return JdbcTemplate.class.isAssignableFrom(targetClass) && JDBC_CALLS.contains(method.getName());
+            }
+        }, (MethodInterceptor) invocation -> {
+            RequestStats.countQuery();
+            return invocation.proceed();
+        });
+    }
+
+    @Bean
+    public RequestStatsFilter requestStatsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${filmorate.logging.request-summary.sample-rate:1.0}") double sampleRate,
+            @Value("${filmorate.logging.request-summary.slow-threshold:500ms}") Duration slowThreshold) {
+        return new RequestStatsFilter(meterRegistry, sampleRate, slowThreshold);
+    }
+}
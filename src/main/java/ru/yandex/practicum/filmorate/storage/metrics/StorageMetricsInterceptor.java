@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import ru.yandex.practicum.filmorate.model.page.Page;
+
+import java.util.Collection;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class StorageMetricsInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String storage = AopUtils.getTargetClass(invocation.getThis()).getSimpleName();
+        String method = invocation.getMethod().getName();
+        MeterRegistry registry = meterRegistry.getObject();
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            Object result = invocation.proceed();
+            Integer rows = rows(result);
+            if (rows != null) {
+                DistributionSummary.builder("filmorate.storage.rows")
+                        .description("Число строк, возвращённых методом хранилища")
+                        .tags("storage", storage, "method", method)
+                        .serviceLevelObjectives(1, 10, 100, 1_000, 10_000)
+                        .register(registry)
+                        .record(rows);
+                RequestStats.countRows(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("filmorate.storage")
+                    .description("Время выполнения методов хранилищ")
+                    .tags("storage", storage, "method", method, "exception", exception)
+                    .register(registry));
+        }
+    }
+
+    private static Integer rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Page) {
+            return ((Page<?>) result).getItems().size();
+        }
+        return null;
+    }
+}
@@ -16,4 +16,6 @@ public interface ReviewStorage {
     Optional<Review> findById(int id);
 
     List<Review> findAll(int filmId, int count);
+
+    List<Review> findAllAfter(int filmId, Integer afterUseful, int afterId, int limit);
 }
@@ -15,6 +15,7 @@ import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -78,10 +79,9 @@ public class ReviewBdStorage implements ReviewStorage {
 
     @Override
     public Optional<Review> findById(int id) {
-        SqlRowSet reviewRows = jdbcTemplate.queryForRowSet("SELECT r.*, " +
-                "SUM(CASE WHEN LR.IS_POSITIVE = TRUE THEN 1 WHEN LR.IS_POSITIVE = FALSE THEN -1 ELSE 0 END) AS USE " +
-                "FROM REVIEWS AS r " + "LEFT JOIN LIKE_REVIEW as LR on r.REVIEW_ID = LR.REVIEW_ID " +
-                " WHERE r.REVIEW_ID = ? GROUP BY r.REVIEW_ID", id);
+        SqlRowSet reviewRows = jdbcTemplate.queryForRowSet("SELECT * " +
+                "FROM REVIEWS " +
+                "WHERE REVIEW_ID = ?", id);
         if (reviewRows.next()) {
             return Optional.of(reviewRows(reviewRows));
         } else log.info("Фильм с идентификатором {} не найден.", id);
@@ -90,15 +90,30 @@ public class ReviewBdStorage implements ReviewStorage {
 
     @Override
     public List<Review> findAll(int filmId, int count) {
-        String where = "";
-        if (filmId != 0) where = "WHERE FILM_ID = " + filmId;
-        String sql = "SELECT r.*, " +
-                "SUM(CASE WHEN LR.IS_POSITIVE = TRUE THEN 1 WHEN LR.IS_POSITIVE = FALSE THEN -1 ELSE 0 END) AS USE " +
-                "FROM REVIEWS AS r " +
-                "LEFT JOIN LIKE_REVIEW as LR on r.REVIEW_ID = LR.REVIEW_ID " + where +
-                " GROUP BY r.REVIEW_ID " + " ORDER BY USE DESC" +
-                " LIMIT " + count;
-        return jdbcTemplate.query(sql, (rs, rowNum) -> makeReview(rs));
+        return findAllAfter(filmId, null, 0, count);
+    }
+
+    @Override
+    public List<Review> findAllAfter(int filmId, Integer afterUseful, int afterId, int limit) {
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (filmId != 0) {
+            conditions.add("FILM_ID = ?");
+            params.add(filmId);
+        }
+        if (afterUseful != null) {
+            conditions.add("(USEFUL < ? OR (USEFUL = ? AND REVIEW_ID > ?))");
+            params.add(afterUseful);
+            params.add(afterUseful);
+            params.add(afterId);
+        }
+        params.add(limit);
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        String sql = "SELECT * " +
+                "FROM REVIEWS " + where +
+                "ORDER BY USEFUL DESC, REVIEW_ID " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> makeReview(rs), params.toArray());
     }
 
     private Review makeReview(ResultSet rs) throws SQLException {
@@ -107,7 +122,7 @@ public class ReviewBdStorage implements ReviewStorage {
                 rs.getBoolean("IS_POSITIVE"),
                 rs.getInt("USER_ID"),
                 rs.getInt("FILM_ID"),
-                rs.getInt("USE"));
+                rs.getInt("USEFUL"));
     }
 
     private Review reviewRows(SqlRowSet rs) {
@@ -116,7 +131,7 @@ public class ReviewBdStorage implements ReviewStorage {
                 rs.getBoolean("IS_POSITIVE"),
                 rs.getInt("USER_ID"),
                 rs.getInt("FILM_ID"),
-                rs.getInt("USE"));
+                rs.getInt("USEFUL"));
     }
 
 
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
@@ -10,6 +11,10 @@ public interface UserStorage {
 
     List<User> findAllUsers();
 
+    List<User> findUsersAfter(int afterId, int limit);
+
+    void exportUsers(int fetchSize, Consumer<User> consumer);
+
     User addUser(User user);
 
     User updateUser(User user);
@@ -22,5 +27,7 @@ public interface UserStorage {
 
     List<User> getCommonsFriends(Integer id, Integer otherId);
 
+    void rebuildFriendIndex();
+
     User deleteUser(Integer id);
 }
@@ -3,17 +3,27 @@ package ru.yandex.practicum.filmorate.storage.user.dao;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
+import ru.yandex.practicum.filmorate.storage.index.AfterCommit;
+import ru.yandex.practicum.filmorate.storage.index.FriendIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
@@ -21,9 +31,18 @@ import java.util.*;
 public class UserDbStorage implements UserStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private final LikeIndex likeIndex;
+    private final FriendIndex friendIndex;
+    private final EntityCache entityCache;
+    private final PrimaryReads primaryReads;
 
     @Override
     public User getUserById(Integer id) {
+        return entityCache.getUser(id, userId -> primaryReads.call(() -> loadUser(userId)));
+    }
+
+    private User loadUser(Integer id) {
         String sqlQuery =
                 "SELECT user_id, email, login, name, birthday " +
                         "FROM users " +
@@ -53,6 +72,33 @@ public class UserDbStorage implements UserStorage {
         return users;
     }
 
+    @Override
+    public List<User> findUsersAfter(int afterId, int limit) {
+        String sqlQuery =
+                "SELECT user_id, email, login, name, birthday " +
+                        "FROM users " +
+                        "WHERE user_id > ? " +
+                        "ORDER BY user_id " +
+                        "LIMIT ?";
+
+        return jdbcTemplate.query(sqlQuery, this::getMapRowToUser, afterId, limit);
+    }
+
+    @Override
+    public void exportUsers(int fetchSize, Consumer<User> consumer) {
+        String sqlQuery =
+                "SELECT user_id, email, login, name, birthday " +
+                        "FROM users " +
+                        "ORDER BY user_id";
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            return stmt;
+        }, (RowCallbackHandler) rs -> consumer.accept(getMapRowToUser(rs, rs.getRow())));
+    }
+
     @Override
     public User addUser(User user) {
         getValidationUser(user);
@@ -75,6 +121,7 @@ public class UserDbStorage implements UserStorage {
                 user.getName(), user.getBirthday(), user.getId());
 
         if (rowsCount > 0) {
+            entityCache.evictUser(user.getId());
             log.info("Поступил запрос на изменения пользователя. Пользователь изменён.");
             return user;
         }
@@ -95,6 +142,12 @@ public class UserDbStorage implements UserStorage {
                         "VALUES(?, ?)";
 
         jdbcTemplate.update(sqlQuery, userId, friendId);
+        entityCache.evictUser(userId);
+        AfterCommit.run(() -> {
+            if (friendIndex.isLoaded()) {
+                friendIndex.add(userId, friendId);
+            }
+        });
         return getUserById(userId);
     }
 
@@ -107,50 +160,103 @@ public class UserDbStorage implements UserStorage {
                         "WHERE user_id = ? AND friend_id = ?";
 
         jdbcTemplate.update(sqlQuery, userId, friendId);
+        entityCache.evictUser(userId);
+        AfterCommit.run(() -> friendIndex.remove(userId, friendId));
         return user;
     }
 
     @Override
+    @Transactional
     public User deleteUser(Integer id) {
         User user = getUserById(id);
+        Map<Integer, Integer> likedFilms = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, COUNT(*) AS likes FROM likes WHERE user_id = ? GROUP BY film_id",
+                rs -> {
+                    likedFilms.put(rs.getInt("film_id"), rs.getInt("likes"));
+                }, id);
+        likedFilms.forEach((filmId, likes) ->
+                jdbcTemplate.update("UPDATE films SET like_count = like_count - ? WHERE film_id = ?", likes, filmId));
+        entityCache.evictFilms(likedFilms.keySet());
+        AfterCommit.run(() -> {
+            popularityIndex.refreshLikes(likedFilms.keySet(), this::loadLikeCounts);
+            likeIndex.removeUser(id);
+            friendIndex.removeUser(id);
+        });
+        jdbcTemplate.update("UPDATE reviews r SET useful = useful - " +
+                "(SELECT SUM(CASE WHEN lr.is_positive THEN 1 ELSE -1 END) FROM like_review lr " +
+                "WHERE lr.review_id = r.review_id AND lr.user_id = ?) " +
+                "WHERE review_id IN (SELECT review_id FROM like_review WHERE user_id = ?)", id, id);
         String sqlQuery =
                 "DELETE " +
                         "FROM users " +
                         "WHERE user_id = ?";
 
         jdbcTemplate.update(sqlQuery, id);
+        entityCache.evictUser(id);
         return user;
     }
 
     @Override
     public List<User> getCommonsFriends(Integer id, Integer otherId) {
-        String sqlQuery =
-                "SELECT user_id, email, login, name, birthday " +
-                        "FROM users " +
-                        "WHERE user_id " +
-                        "IN(SELECT friend_id " +
-                        "FROM friends " +
-                        "WHERE user_id = ?) " +
-                        "AND user_id " +
-                        "IN(SELECT friend_id " +
-                        "FROM friends " +
-                        "WHERE user_id = ?)";
-
-        return new ArrayList<>(jdbcTemplate.query(sqlQuery, this::getMapRowToUser, id, otherId));
+        friendIndex.loadIfAbsent(index -> primaryReads.run(() -> loadFriends(index)));
+        return findUsersByIds(friendIndex.getCommonFriends(id, otherId));
     }
 
     @Override
     public List<User> getFriendsByUserId(Integer id) {
-        getUserById(id);
+        friendIndex.loadIfAbsent(index -> primaryReads.run(() -> loadFriends(index)));
+        int[] friendIds = friendIndex.getFriends(id);
+        int[] ids = Arrays.copyOf(friendIds, friendIds.length + 1);
+        ids[friendIds.length] = id;
+        List<User> friends = new ArrayList<>();
+        boolean exists = false;
+        for (User user : findUsersByIds(ids)) {
+            if (user.getId().equals(id)) {
+                exists = true;
+                if (Arrays.binarySearch(friendIds, id) < 0) {
+                    continue;
+                }
+            }
+            friends.add(user);
+        }
+        if (!exists) {
+            throw new NotFoundException("Пользователь не найден.");
+        }
+        return friends;
+    }
+
+    @Override
+    public void rebuildFriendIndex() {
+        friendIndex.reload(this::loadFriends);
+        log.info("Граф друзей загружен в память.");
+    }
+
+    private List<User> findUsersByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
         String sqlQuery =
                 "SELECT user_id, email, login, name, birthday " +
                         "FROM users " +
-                        "WHERE user_id " +
-                        "IN(SELECT friend_id " +
-                        "FROM friends " +
-                        "WHERE user_id=?)";
+                        "WHERE user_id = ANY(?) " +
+                        "ORDER BY user_id";
+
+        return jdbcTemplate.query(sqlQuery, this::getMapRowToUser,
+                (Object) Arrays.stream(ids).boxed().toArray(Integer[]::new));
+    }
+
+    private void loadFriends(FriendIndex index) {
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id", rs -> {
+            index.add(rs.getInt("user_id"), rs.getInt("friend_id"));
+        });
+    }
 
-        return new ArrayList<>(jdbcTemplate.query(sqlQuery, this::getMapRowToUser, id));
+    private Map<Integer, Integer> loadLikeCounts(Collection<Integer> filmIds) {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, like_count FROM films WHERE film_id = ANY(?)", rs -> {
+            likeCounts.put(rs.getInt("film_id"), rs.getInt("like_count"));
+        }, (Object) filmIds.toArray(new Integer[0]));
+        return likeCounts;
     }
 
     private Map<String, Object> toMap(User user) {
@@ -20,7 +20,8 @@ CREATE TABLE IF NOT EXISTS films
     description   VARCHAR(200) NOT NULL,
     release_date  TIMESTAMP    NOT NULL,
     duration      INTEGER         NOT NULL,
-    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id)
+    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id),
+    like_count    INTEGER      NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS users
@@ -81,18 +82,41 @@ CREATE TABLE IF NOT EXISTS feed
     entity_id  INTEGER NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE
 );
+
+CREATE TABLE IF NOT EXISTS feed_archive
+(
+    event_id   INTEGER PRIMARY KEY,
+    user_id    INTEGER NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    timestamp  BIGINT NOT NULL,
+    event_type VARCHAR(10) NOT NULL,
+    operation  VARCHAR(10) NOT NULL,
+    entity_id  INTEGER NOT NULL
+);
 CREATE TABLE IF NOT EXISTS reviews
 (
     review_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     content VARCHAR(400) NOT NULL,
     is_positive BOOLEAN NOT NULL,
     user_id INTEGER NOT NULL,
-    film_id INTEGER NOT NULL REFERENCES films (film_id) ON DELETE CASCADE
+    film_id INTEGER NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
+    useful INTEGER NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS like_review
 (
     review_id INTEGER NOT NULL REFERENCES reviews (review_id) ON DELETE CASCADE,
     user_id INTEGER NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
-    is_positive BOOLEAN NOT NULL
-);
\ No newline at end of file
+    is_positive BOOLEAN NOT NULL,
+    PRIMARY KEY (review_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS genre_film_id_idx ON genre (film_id);
+CREATE UNIQUE INDEX IF NOT EXISTS likes_film_id_user_id_idx ON likes (film_id, user_id);
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+CREATE INDEX IF NOT EXISTS friends_user_id_idx ON friends (user_id);
+CREATE INDEX IF NOT EXISTS feed_user_id_event_id_idx ON feed (user_id, event_id);
+CREATE INDEX IF NOT EXISTS feed_timestamp_event_id_idx ON feed (timestamp, event_id);
+CREATE INDEX IF NOT EXISTS feed_archive_user_id_event_id_idx ON feed_archive (user_id, event_id);
+CREATE INDEX IF NOT EXISTS like_review_user_id_idx ON like_review (user_id);
+CREATE INDEX IF NOT EXISTS reviews_film_id_useful_idx ON reviews (film_id, useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS reviews_useful_idx ON reviews (useful DESC, review_id);
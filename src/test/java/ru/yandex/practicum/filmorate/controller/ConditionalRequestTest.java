@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.event.FeedWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Sql({"/test-schema-feed.sql", "/test-data-feed.sql"})
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ConditionalRequestTest {
+
+    private final MockMvc mockMvc;
+    private final FeedWriter feedWriter;
+
+    @AfterEach
+    void awaitFeedWrites() {
+        assertThat(feedWriter.awaitFlushed(1)).isTrue();
+        assertThat(feedWriter.awaitFlushed(2)).isTrue();
+    }
+
+    @Test
+    void filmIsNotModifiedUntilLikedTest() throws Exception {
+        String etag = assertNotModified("/films/1");
+
+        mockMvc.perform(put("/films/1/like/2")).andExpect(status().isOk());
+
+        assertModified("/films/1", etag);
+    }
+
+    @Test
+    void userIsNotModifiedUntilFriendAddedTest() throws Exception {
+        String etag = assertNotModified("/users/1");
+
+        mockMvc.perform(put("/users/1/friends/2")).andExpect(status().isOk());
+
+        assertModified("/users/1", etag);
+    }
+
+    @Test
+    void directorsAreNotModifiedUntilDirectorAddedTest() throws Exception {
+        String etag = assertNotModified("/directors");
+
+        mockMvc.perform(post("/directors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Director4\"}"))
+                .andExpect(status().isOk());
+
+        assertModified("/directors", etag);
+    }
+
+    @Test
+    void referenceDataIsNotModifiedByFilmWritesTest() throws Exception {
+        String genres = assertNotModified("/genres");
+        String mpa = assertNotModified("/mpa");
+
+        mockMvc.perform(put("/films/1/like/2")).andExpect(status().isOk());
+
+        mockMvc.perform(conditionalGet("/genres", genres)).andExpect(status().isNotModified());
+        mockMvc.perform(conditionalGet("/mpa", mpa)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void missingEntityIsNotFoundDespiteMatchingEtagTest() throws Exception {
+        String film = assertNotModified("/films/1").replaceAll("film-1-(\\w+)-\\d+", "film-99-$1-0");
+        String user = assertNotModified("/users/1").replaceAll("user-1-(\\w+)-\\d+", "user-99-$1-0");
+
+        mockMvc.perform(conditionalGet("/films/99", film)).andExpect(status().isNotFound());
+        mockMvc.perform(conditionalGet("/users/99", user)).andExpect(status().isNotFound());
+    }
+
+    private String assertNotModified(String uri) throws Exception {
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(conditionalGet(uri, etag)).andExpect(status().isNotModified());
+        return etag;
+    }
+
+    private void assertModified(String uri, String etag) throws Exception {
+        String changed = mockMvc.perform(conditionalGet(uri, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotBlank().isNotEqualTo(etag);
+
+        mockMvc.perform(conditionalGet(uri, changed)).andExpect(status().isNotModified());
+    }
+
+    private static RequestBuilder conditionalGet(String uri, String etag) {
+        return get(uri).header(HttpHeaders.IF_NONE_MATCH, etag);
+    }
+}
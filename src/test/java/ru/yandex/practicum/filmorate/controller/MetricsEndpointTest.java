@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Sql({"/test-schema-feed.sql", "/test-data-feed.sql"})
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.cache.maximum-size=0")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class MetricsEndpointTest {
+
+    private final MockMvc mockMvc;
+    private final MeterRegistry meterRegistry;
+
+    @Test
+    void storageCallsAndQueriesPerRequestAreRecordedTest() throws Exception {
+        mockMvc.perform(get("/films/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films")).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("filmorate.storage")
+                .tags("storage", "FilmDbStorage", "method", "getFilmById", "exception", "none")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("filmorate.storage.rows")
+                .tags("storage", "FilmDbStorage", "method", "findAllFilms")
+                .summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get("filmorate.http.queries").tag("uri", "/films/{id}")
+                .summary().max()).isBetween(1.0, 5.0);
+    }
+
+    @Test
+    void cacheHitsAndMissesAreRecordedTest() throws Exception {
+        mockMvc.perform(get("/genres/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/2")).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("filmorate.cache.gets").tags("cache", "reference", "result", "hit")
+                .functionCounter().count()).isPositive();
+        assertThat(meterRegistry.get("filmorate.cache.gets").tags("cache", "users", "result", "miss")
+                .functionCounter().count()).isPositive();
+        mockMvc.perform(get("/actuator/metrics/filmorate.cache.gets").param("tag", "cache:reference"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void metricsAreExportedForPrometheusTest() throws Exception {
+        mockMvc.perform(get("/users/1")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(scrape)
+                .contains("filmorate_storage_seconds_bucket")
+                .contains("filmorate_http_queries_count")
+                .contains("filmorate_cache_gets_total{cache=\"reference\",result=\"hit\"")
+                .contains("http_server_requests_seconds{")
+                .contains("quantile=\"0.99\"");
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Sql({"/test-schema-feed.sql", "/test-data-feed.sql"})
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class RequestValidationTest {
+
+    private final MockMvc mockMvc;
+
+    @Test
+    void popularFilmsRejectNonPositiveCountTest() throws Exception {
+        mockMvc.perform(get("/films/popular").param("count", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "1")).andExpect(status().isOk());
+    }
+
+    @Test
+    @Sql({"/schematest.sql", "/datatest.sql"})
+    void reviewReactionsBatchRejectsInvalidItemsTest() throws Exception {
+        mockMvc.perform(post("/reviews/reactions:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"reviewId\":-1,\"userId\":1,\"isPositive\":true}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/reviews/reactions:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"userId\":1,\"isPositive\":true}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/reviews/reactions:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/reviews/reactions:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"reviewId\":1,\"userId\":1,\"isPositive\":true}]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/reviews")).andExpect(status().isOk());
+    }
+}
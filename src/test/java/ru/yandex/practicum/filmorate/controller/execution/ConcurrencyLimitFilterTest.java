@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.controller.execution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50),
+            new ObjectMapper(), meterRegistry);
+
+    @Test
+    void requestsOverLimitAreRejectedTest() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> slow = CompletableFuture.supplyAsync(() ->
+                filter(new MockHttpServletRequest("GET", "/films/1"), () -> {
+                    entered.countDown();
+                    await(release);
+                }));
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = filter(new MockHttpServletRequest("GET", "/films/2"), () -> {
+        });
+        Assertions.assertEquals(503, rejected.getStatus());
+        Assertions.assertTrue(rejected.getContentAsString().contains("error"));
+        Assertions.assertEquals(200, filter(new MockHttpServletRequest("GET", "/actuator/health"), () -> {
+        }).getStatus());
+
+        release.countDown();
+        Assertions.assertEquals(200, slow.get(5, TimeUnit.SECONDS).getStatus());
+        Assertions.assertEquals(200, filter(new MockHttpServletRequest("GET", "/films/2"), () -> {
+        }).getStatus());
+        Assertions.assertEquals(1, meterRegistry.get("filmorate.requests.rejected").counter().count());
+        Assertions.assertEquals(1, meterRegistry.get("filmorate.requests.permits.available").gauge().value());
+    }
+
+    @Test
+    void asyncRequestHoldsPermitUntilCompletedTest() throws Exception {
+        MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/events/stream");
+        stream.setAsyncSupported(true);
+        filter.doFilter(stream, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        Assertions.assertTrue(stream.isAsyncStarted());
+
+        Assertions.assertEquals(503, filter(new MockHttpServletRequest("GET", "/films/1"), () -> {
+        }).getStatus());
+        Assertions.assertEquals(0, meterRegistry.get("filmorate.requests.permits.available").gauge().value());
+
+        stream.getAsyncContext().complete();
+        Assertions.assertEquals(200, filter(new MockHttpServletRequest("GET", "/films/1"), () -> {
+        }).getStatus());
+        Assertions.assertEquals(1, meterRegistry.get("filmorate.requests.permits.available").gauge().value());
+    }
+
+    @Test
+    void defaultLimitLeavesConnectionsForParallelFetchTest() {
+        Assertions.assertEquals(10, VirtualThreadConfig.defaultConcurrentRequests(10, false, 4));
+        Assertions.assertEquals(6, VirtualThreadConfig.defaultConcurrentRequests(10, true, 4));
+        Assertions.assertEquals(1, VirtualThreadConfig.defaultConcurrentRequests(4, true, 4));
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, Runnable handler) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, (req, res) -> handler.run());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
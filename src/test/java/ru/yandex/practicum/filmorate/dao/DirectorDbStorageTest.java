@@ -7,9 +7,16 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.director.dao.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.mpa.dao.MpaDbStorage;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,7 +32,9 @@ class DirectorDbStorageTest {
     @Autowired
     public DirectorDbStorageTest(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
-        directorStorage = new DirectorDbStorage(jdbcTemplate);
+        directorStorage = new DirectorDbStorage(jdbcTemplate, new ReferenceDataCache(jdbcTemplate,
+                new MpaDbStorage(jdbcTemplate), new GenreDbStorage(jdbcTemplate), PrimaryReads.direct()), new FilmSearchIndex(),
+                new EntityCache(1000, Duration.ofMinutes(10)));
     }
 
     @Test
@@ -1,34 +1,93 @@
 package ru.yandex.practicum.filmorate.dao;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.service.export.ExportFormat;
+import ru.yandex.practicum.filmorate.service.export.ExportWriter;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
 import ru.yandex.practicum.filmorate.storage.film.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmFetchExecutor;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmHydrator;
+import ru.yandex.practicum.filmorate.storage.genre.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.SearchField;
+import ru.yandex.practicum.filmorate.storage.mpa.dao.MpaDbStorage;
 
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJdbcTest
 @Sql(value = {"/schematest.sql", "/datatest.sql"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
 public class FilmDbStorageTest {
     private final JdbcTemplate jdbcTemplate;
     private final FilmDbStorage filmDbStorage;
+    private final LikeIndex likeIndex = new LikeIndex();
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+    private final EntityCache entityCache = new EntityCache(1000, Duration.ofMinutes(10));
+    private final ReferenceDataCache referenceDataCache;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public FilmDbStorageTest(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorageTest(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
-        filmDbStorage = new FilmDbStorage(jdbcTemplate);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        referenceDataCache = new ReferenceDataCache(jdbcTemplate,
+                new MpaDbStorage(jdbcTemplate), new GenreDbStorage(jdbcTemplate), PrimaryReads.direct());
+        filmDbStorage = new FilmDbStorage(jdbcTemplate,
+                new FilmHydrator(jdbcTemplate, referenceDataCache,
+                        new FilmFetchExecutor(false, 1, 1, Duration.ofSeconds(2), new SimpleMeterRegistry())),
+                referenceDataCache, popularityIndex, new FilmSearchIndex(), likeIndex, entityCache,
+                PrimaryReads.direct());
     }
 
     @Test
@@ -45,6 +104,88 @@ public class FilmDbStorageTest {
         Assertions.assertEquals(2, listFilms.size());
     }
 
+    @Test
+    public void findFilmsAfterTest() {
+        for (int i = 0; i < 200; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, rating_mpa_id) " +
+                    "VALUES (?, 'description', '2000-01-01', 100, 1)", "film" + i);
+        }
+        Assertions.assertEquals(List.of(1, 2, 3), filmIds(filmDbStorage.findFilmsAfter(0, 3)));
+        Assertions.assertEquals(List.of(151, 152, 153), filmIds(filmDbStorage.findFilmsAfter(150, 3)));
+        Assertions.assertEquals(List.of(202), filmIds(filmDbStorage.findFilmsAfter(201, 3)));
+
+        String pageQuery = "SELECT film_id, name FROM films WHERE film_id > %d ORDER BY film_id LIMIT 11";
+        long scanned = countScannedRows(String.format(pageQuery, 20));
+        Assertions.assertTrue(scanned <= 12);
+        Assertions.assertEquals(scanned, countScannedRows(String.format(pageQuery, 180)));
+    }
+
+    @Test
+    public void exportFilmsTest() throws IOException {
+        filmDbStorage.like(2, 1);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ExportWriter.<Film>write(objectMapper, ExportFormat.JSON, out, c -> filmDbStorage.exportFilms(1, c));
+
+        JsonNode films = objectMapper.readTree(out.toByteArray());
+        Assertions.assertEquals(2, films.size());
+        Assertions.assertEquals("Film Updated", films.get(0).get("name").asText());
+        Assertions.assertEquals(2, films.get(1).get("genres").size());
+        Assertions.assertEquals(1, films.get(1).get("likes").size());
+        Assertions.assertEquals("1999-04-30", films.get(1).get("releaseDate").asText());
+    }
+
+    @Test
+    public void readStatementCountDoesNotDependOnFilmsCountTest() {
+        filmDbStorage.findAllFilms();
+        filmDbStorage.getPopularFilms(100, -1, -1);
+        long findAllStatements = countStatements(() -> filmDbStorage.findAllFilms());
+        long popularStatements = countStatements(() -> filmDbStorage.getPopularFilms(100, -1, -1));
+
+        for (int i = 0; i < 50; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, rating_mpa_id) " +
+                    "VALUES (?, 'description', '2000-01-01', 100, ?)", "film" + i, i % 5 + 1);
+        }
+        jdbcTemplate.update("INSERT INTO genre (film_id, genre_id) SELECT film_id, 1 FROM films");
+        jdbcTemplate.update("INSERT INTO likes (film_id, user_id) SELECT film_id, 1 FROM films");
+        jdbcTemplate.update("MERGE INTO director_films (film_id, director_id) SELECT film_id, 1 FROM films");
+        filmDbStorage.rebuildLikeCounts();
+
+        Assertions.assertEquals(52, filmDbStorage.findAllFilms().size());
+        Assertions.assertEquals(52, filmDbStorage.getPopularFilms(100, -1, -1).size());
+        Assertions.assertEquals(findAllStatements, countStatements(() -> filmDbStorage.findAllFilms()));
+        Assertions.assertEquals(popularStatements, countStatements(() -> filmDbStorage.getPopularFilms(100, -1, -1)));
+    }
+
+    @Test
+    public void filmScopedLookupCostDoesNotDependOnTableSizeTest() {
+        String genreQuery = "SELECT gt.genre_id, gt.name FROM genre AS g " +
+                "JOIN genre_type AS gt ON g.genre_id = gt.genre_id WHERE g.film_id = 2";
+        String likesQuery = "SELECT like_id FROM likes WHERE film_id = 2";
+        filmDbStorage.like(2, 1);
+        long genreScans = countScannedRows(genreQuery);
+        long likesScans = countScannedRows(likesQuery);
+
+        for (int i = 0; i < 200; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, rating_mpa_id) " +
+                    "VALUES (?, 'description', '2000-01-01', 100, 1)", "film" + i);
+        }
+        jdbcTemplate.update("INSERT INTO genre (film_id, genre_id) SELECT film_id, 1 FROM films WHERE film_id > 2");
+        jdbcTemplate.update("INSERT INTO genre (film_id, genre_id) SELECT film_id, 3 FROM films WHERE film_id > 2");
+        for (int userId = 1; userId <= 3; userId++) {
+            jdbcTemplate.update("INSERT INTO likes (film_id, user_id) SELECT film_id, ? FROM films WHERE film_id > 2",
+                    userId);
+        }
+
+        Assertions.assertEquals(genreScans, countScannedRows(genreQuery));
+        Assertions.assertEquals(likesScans, countScannedRows(likesQuery));
+        Assertions.assertEquals(2, filmDbStorage.getGenre(2).size());
+        Assertions.assertEquals(1, filmDbStorage.getLikes(2).size());
+    }
+
     @Test
     public void getPopularFilmsTest() {
         List<Film> listFilms = filmDbStorage.getPopularFilms(5, -1, -1);
@@ -59,6 +200,105 @@ public class FilmDbStorageTest {
         Assertions.assertEquals(1, listFilms2.size());
     }
 
+    @Test
+    public void indexesSkipRolledBackWritesTest() {
+        Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+        Assertions.assertEquals(List.of(), filmIds(filmDbStorage.getCommonFilms(1, 2)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            filmDbStorage.like(2, 1);
+            filmDbStorage.like(2, 2);
+            Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+            status.setRollbackOnly();
+        });
+        Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+        Assertions.assertEquals(List.of(), filmIds(filmDbStorage.getCommonFilms(1, 2)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            filmDbStorage.like(2, 1);
+            filmDbStorage.like(2, 2);
+        });
+        Assertions.assertEquals(List.of(2, 1), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+        Assertions.assertEquals(List.of(2), filmIds(filmDbStorage.getCommonFilms(1, 2)));
+    }
+
+    @Test
+    public void popularityLoadedBeforeAfterCommitCountsLikeOnceTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    filmDbStorage.getPopularFilms(5, -1, -1);
+                }
+            });
+            filmDbStorage.like(2, 1);
+        });
+
+        Assertions.assertEquals(1, popularityIndex.getLikeCount(2));
+        Assertions.assertEquals(List.of(2, 1), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+    }
+
+    @Test
+    public void searchesDoNotBlockEachOtherTest() throws Exception {
+        FilmSearchIndex searchIndex = new FilmSearchIndex();
+        searchIndex.putFilm(1, "Matrix", List.of());
+        searchIndex.putFilm(2, "Matrix Reloaded", List.of());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Integer>> blocked = CompletableFuture.supplyAsync(() ->
+                searchIndex.search("matrix", EnumSet.of(SearchField.TITLE), filmId -> {
+                    entered.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 0;
+                }));
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(List.of(1, 2), Assertions.assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> searchIndex.search("matrix", EnumSet.of(SearchField.TITLE), filmId -> 0)));
+        release.countDown();
+        Assertions.assertEquals(List.of(1, 2), blocked.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void getPopularFilmsFollowsLikesTest() {
+        filmDbStorage.like(2, 1);
+        Assertions.assertEquals(List.of(2, 1), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+
+        filmDbStorage.like(1, 1);
+        filmDbStorage.like(1, 2);
+        Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.getPopularFilms(1, -1, -1)));
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM films WHERE film_id = 1", Integer.class));
+
+        filmDbStorage.deleteLike(1, 1);
+        filmDbStorage.deleteLike(1, 2);
+        filmDbStorage.deleteLike(1, 2);
+        Assertions.assertEquals(List.of(2, 1), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+        Assertions.assertEquals(List.of(2), filmIds(filmDbStorage.getPopularFilms(5, 2, 1999)));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM films WHERE film_id = 1", Integer.class));
+    }
+
+    @Test
+    public void rebuildLikeCountsRepairsCountersTest() {
+        filmDbStorage.getPopularFilms(5, -1, -1);
+        jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (1, 1), (1, 2)");
+        jdbcTemplate.update("UPDATE films SET like_count = 7 WHERE film_id = 2");
+
+        filmDbStorage.rebuildLikeCounts();
+
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM films WHERE film_id = 1", Integer.class));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT like_count FROM films WHERE film_id = 2", Integer.class));
+        Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+    }
+
     @Test
     public void getFilmsByDirectorSortByYearTest() {
         List<Film> films = filmDbStorage.findAllFilms();
@@ -171,6 +411,22 @@ public class FilmDbStorageTest {
         assertThat(common3.isEmpty()).isTrue();
     }
 
+    @Test
+    @Sql(value = {"/test-schema-common-films.sql", "/test-data-common-films.sql"})
+    void getCommonFilmsServedFromLikeIndexTest() {
+        Assertions.assertEquals(List.of(2, 1), filmIds(filmDbStorage.getCommonFilms(1, 2)));
+        Assertions.assertEquals(4, countStatements(() -> filmDbStorage.getCommonFilms(1, 2)));
+
+        filmDbStorage.applyLikes(List.of(
+                LikeOperation.builder().filmId(2).userId(3).op(EventOperation.REMOVE).build(),
+                LikeOperation.builder().filmId(2).userId(4).op(EventOperation.REMOVE).build()));
+        Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getCommonFilms(1, 2)));
+
+        filmDbStorage.like(1, 3);
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.getCommonFilms(3, 2)));
+        Assertions.assertEquals(List.of(), filmIds(filmDbStorage.getCommonFilms(1, 99)));
+    }
+
     @Test
     @Sql(value = {"/test-schema-common-films.sql", "/test-data-common-films.sql"})
     void getCommonFilmsSortedByPopularityEmptyList() {
@@ -221,6 +477,166 @@ public class FilmDbStorageTest {
         Assertions.assertEquals(films.get(4).getId(), 3);
     }
 
+    @Test
+    @Sql(value = {"/schematest.sql", "/testdata-add-search.sql"})
+    void searchFilmsRanksExactWordsAbovePrefixesTest() {
+        Assertions.assertEquals(List.of(3, 1, 2), filmIds(filmDbStorage.searchBy("доктора", "title")));
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.searchBy("доктор стр", "title")));
+        Assertions.assertEquals(List.of(4), filmIds(filmDbStorage.searchBy("ВСЁ", "title")));
+    }
+
+    @Test
+    @Sql(value = {"/schematest.sql", "/testdata-add-search.sql"})
+    void searchFilmsToleratesTyposTest() {
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.searchBy("Стренж", "title")));
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.searchBy("стрендж", "title")));
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.searchBy("стренжд", "title")));
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.searchBy("деррикосн", "director")));
+        Assertions.assertEquals(List.of(), filmIds(filmDbStorage.searchBy("стрн", "title")));
+    }
+
+    @Test
+    @Sql(value = {"/schematest.sql", "/testdata-add-search.sql"})
+    void searchIndexFollowsWritesTest() {
+        filmDbStorage.searchBy("доктор", "title");
+        Film film = filmDbStorage.getFilmById(2);
+        film.setName("Лиза");
+        film.setDirectors(new LinkedHashSet<>(List.of(Director.builder().id(1).build())));
+        filmDbStorage.updateFilm(film);
+
+        Assertions.assertEquals(List.of(1, 3), filmIds(filmDbStorage.searchBy("доктор", "title")));
+        Assertions.assertEquals(List.of(2, 5, 4), filmIds(filmDbStorage.searchBy("кван", "director")));
+
+        Film added = filmDbStorage.addFilm(Film.builder()
+                .name("Доктор Хаус")
+                .description("TestDescription")
+                .releaseDate(LocalDate.of(2004, 11, 16))
+                .duration(44)
+                .mpa(filmDbStorage.getMpaById(3))
+                .build());
+        Assertions.assertEquals(List.of(1, added.getId(), 3), filmIds(filmDbStorage.searchBy("доктор", "title")));
+
+        filmDbStorage.deleteFilm(added.getId());
+        Assertions.assertEquals(List.of(1, 3), filmIds(filmDbStorage.searchBy("доктор", "title")));
+    }
+
+    @Test
+    void addFilmsReturnsHydratedFilmsTest() {
+        List<Film> added = filmDbStorage.addFilms(List.of(
+                Film.builder()
+                        .name("First")
+                        .description("TestDescription")
+                        .releaseDate(LocalDate.of(2001, 1, 1))
+                        .duration(90)
+                        .mpa(Mpa.builder().id(2).build())
+                        .genres(new LinkedHashSet<>(List.of(Genre.builder().id(3).build(),
+                                Genre.builder().id(1).build())))
+                        .directors(new LinkedHashSet<>(List.of(Director.builder().id(1).build())))
+                        .build(),
+                Film.builder()
+                        .name("Second")
+                        .description("TestDescription")
+                        .releaseDate(LocalDate.of(2002, 2, 2))
+                        .duration(100)
+                        .mpa(Mpa.builder().id(4).build())
+                        .build()));
+
+        Assertions.assertEquals(List.of(3, 4), filmIds(added));
+        Assertions.assertEquals(filmDbStorage.getFilmById(3), added.get(0));
+        Assertions.assertEquals("Мультфильм", added.get(0).getGenres().stream().skip(1).findFirst()
+                .map(Genre::getName).orElse(null));
+        Assertions.assertEquals("firstDirector", added.get(0).getDirectors().iterator().next().getName());
+        Assertions.assertEquals(4, filmDbStorage.findAllFilms().size());
+    }
+
+    @Test
+    void addFilmsWithUnknownDirectorWritesNothingTest() {
+        Film film = Film.builder()
+                .name("Orphan")
+                .description("TestDescription")
+                .releaseDate(LocalDate.of(2001, 1, 1))
+                .duration(90)
+                .mpa(Mpa.builder().id(1).build())
+                .directors(new LinkedHashSet<>(List.of(Director.builder().id(42).build())))
+                .build();
+
+        Assertions.assertThrows(NotFoundException.class, () -> filmDbStorage.addFilms(List.of(film)));
+        Assertions.assertEquals(2, filmDbStorage.findAllFilms().size());
+    }
+
+    @Test
+    void updateFilmRewritesOnlyChangedJoinRowsTest() {
+        Integer keptRow = jdbcTemplate.queryForObject(
+                "SELECT id FROM genre WHERE film_id = 2 AND genre_id = 2", Integer.class);
+        filmDbStorage.like(2, 1);
+        Film film = filmDbStorage.getFilmById(2);
+        film.setName("Renamed");
+        film.setGenres(new LinkedHashSet<>(List.of(Genre.builder().id(4).build(), Genre.builder().id(2).build())));
+        film.setDirectors(new LinkedHashSet<>());
+
+        Film updated = filmDbStorage.updateFilm(film);
+
+        Assertions.assertEquals(filmDbStorage.getFilmById(2), updated);
+        Assertions.assertEquals(keptRow, jdbcTemplate.queryForObject(
+                "SELECT id FROM genre WHERE film_id = 2 AND genre_id = 2", Integer.class));
+        Assertions.assertEquals(List.of(2, 4), jdbcTemplate.queryForList(
+                "SELECT genre_id FROM genre WHERE film_id = 2 ORDER BY genre_id", Integer.class));
+        Assertions.assertTrue(filmDbStorage.getFilmDirectors(2).isEmpty());
+        Assertions.assertEquals(1, updated.getLikes().size());
+        Assertions.assertThrows(NotFoundException.class, () -> {
+            film.setId(99);
+            filmDbStorage.updateFilm(film);
+        });
+    }
+
+    @Test
+    void applyLikesDeduplicatesReplayedOperationsTest() {
+        List<LikeOperation> operations = List.of(
+                new LikeOperation(1, 1, EventOperation.ADD),
+                new LikeOperation(1, 1, EventOperation.ADD),
+                new LikeOperation(2, 1, EventOperation.ADD),
+                new LikeOperation(2, 1, EventOperation.REMOVE),
+                new LikeOperation(2, 2, EventOperation.ADD),
+                new LikeOperation(1, 3, EventOperation.REMOVE));
+
+        Assertions.assertEquals(List.of(operations.get(0), operations.get(4)), filmDbStorage.applyLikes(operations));
+        Assertions.assertEquals(List.of(), filmDbStorage.applyLikes(operations));
+        filmDbStorage.like(1, 1);
+        Assertions.assertEquals(List.of(1, 1), jdbcTemplate.queryForList(
+                "SELECT like_count FROM films ORDER BY film_id", Integer.class));
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Integer.class));
+        Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getPopularFilms(5, -1, -1)));
+
+        Assertions.assertThrows(NotFoundException.class, () -> filmDbStorage.applyLikes(List.of(
+                new LikeOperation(1, 2, EventOperation.ADD),
+                new LikeOperation(1, 99, EventOperation.ADD))));
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Integer.class));
+    }
+
+    @Test
+    void getFilmByIdIsCachedUntilFilmChangesTest() {
+        Film film = filmDbStorage.getFilmById(2);
+        film.setName("Changed locally");
+        Assertions.assertEquals(0, countStatements(() -> filmDbStorage.getFilmById(2)));
+        Assertions.assertEquals("New film", filmDbStorage.getFilmById(2).getName());
+
+        filmDbStorage.like(2, 1);
+        Assertions.assertEquals(1, filmDbStorage.getFilmById(2).getLikes().size());
+
+        film.setName("Renamed");
+        filmDbStorage.updateFilm(film);
+        Assertions.assertEquals("Renamed", filmDbStorage.getFilmById(2).getName());
+
+        filmDbStorage.deleteLike(2, 1);
+        Assertions.assertEquals(0, filmDbStorage.getFilmById(2).getLikes().size());
+        Assertions.assertTrue(entityCache.stats().get("films").hitCount() > 0);
+    }
+
+    @Test
+    void searchFilmsRejectsUnknownFieldTest() {
+        Assertions.assertThrows(ValidationException.class, () -> filmDbStorage.searchBy("film", "description"));
+    }
+
     @Test
     @Sql(value = {"/test-schema-common-films.sql", "/test-data-recommended-films.sql"})
     void getRecommendedFilmsTest() {
@@ -243,4 +659,135 @@ public class FilmDbStorageTest {
         Assertions.assertEquals(filmDbStorage.getFilmById(1).getId(), recommendedFilms.get(0).getId());
         Assertions.assertEquals(filmDbStorage.getFilmById(2).getId(), recommendedFilms.get(1).getId());
     }
+
+    @Test
+    @Sql(value = {"/test-schema-common-films.sql", "/test-data-recommended-films.sql"})
+    void getRecommendedFilmsRanksBySimilarityTest() {
+        filmDbStorage.like(3, 3);
+        filmDbStorage.like(3, 4);
+        filmDbStorage.like(1, 4);
+
+        Assertions.assertEquals(List.of(1, 2), filmIds(filmDbStorage.getRecommendedFilms(3)));
+        Assertions.assertEquals(List.of(2), filmIds(filmDbStorage.getRecommendedFilms(4)));
+        Assertions.assertEquals(List.of(), filmIds(filmDbStorage.getRecommendedFilms(5)));
+    }
+
+    @Test
+    void filmVersionChangesOnlyOnWritesTest() {
+        String version = entityCache.getFilmVersion(2);
+        filmDbStorage.getFilmById(2);
+        Assertions.assertEquals(version, entityCache.getFilmVersion(2));
+        Assertions.assertEquals(0, countStatements(() -> entityCache.getFilmVersion(2)));
+
+        String otherVersion = entityCache.getFilmVersion(1);
+        filmDbStorage.like(2, 1);
+        String liked = entityCache.getFilmVersion(2);
+        Assertions.assertNotEquals(version, liked);
+        Assertions.assertEquals(otherVersion, entityCache.getFilmVersion(1));
+
+        filmDbStorage.deleteLike(2, 1);
+        Assertions.assertNotEquals(liked, entityCache.getFilmVersion(2));
+    }
+
+    @Test
+    void parallelFetchAssemblesSameFilmsTest() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FilmFetchExecutor parallel = new FilmFetchExecutor(true, 3, 16, Duration.ofSeconds(5), meterRegistry);
+        List<Film> expected = filmDbStorage.findAllFilms();
+        List<Film> films = new FilmHydrator(jdbcTemplate, referenceDataCache, parallel).hydrate(expected.stream()
+                .map(film -> film.toBuilder().genres(null).likes(null).directors(null).build())
+                .collect(Collectors.toList()));
+        parallel.destroy();
+
+        Assertions.assertEquals(expected, films);
+        for (String stage : List.of("genres", "likes", "directors")) {
+            Assertions.assertEquals(1, meterRegistry.get("filmorate.films.fetch").tag("stage", stage).timer().count());
+        }
+    }
+
+    @Test
+    void parallelFetchIsCancelledOnTimeoutTest() {
+        FilmFetchExecutor parallel = new FilmFetchExecutor(true, 2, 4, Duration.ofMillis(50),
+                new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+        Future<Boolean> stuck = parallel.submit("stuck", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+                interrupted.complete(Thread.currentThread().isInterrupted());
+            } catch (InterruptedException e) {
+                interrupted.complete(true);
+            }
+            return true;
+        });
+
+        Assertions.assertThrows(QueryTimeoutException.class, () -> parallel.await(List.of(stuck)));
+        Assertions.assertTrue(stuck.isCancelled());
+        release.countDown();
+        Assertions.assertFalse(interrupted.join());
+        parallel.destroy();
+    }
+
+    @Test
+    void parallelFetchRunsInlineWhenPoolIsExhaustedTest() throws SQLException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:film-fetch-pool");
+        pool.setMaximumPoolSize(1);
+        FilmFetchExecutor parallel = new FilmFetchExecutor(true, 2, 4, Duration.ofSeconds(5), meterRegistry,
+                new StaticListableBeanFactory(Map.of("dataSource", pool)).getBeanProvider(DataSource.class));
+        String caller = Thread.currentThread().getName();
+        try {
+            try (Connection ignored = pool.getConnection()) {
+                Assertions.assertEquals(caller, parallel.get(parallel.submit("genres",
+                        () -> Thread.currentThread().getName())));
+            }
+            Assertions.assertNotEquals(caller, parallel.get(parallel.submit("genres",
+                    () -> Thread.currentThread().getName())));
+        } finally {
+            parallel.destroy();
+            pool.close();
+        }
+        Assertions.assertEquals(1, meterRegistry.get("filmorate.films.fetch.inline").counter().count());
+    }
+
+    @Test
+    @Sql(value = {"/test-schema-common-films.sql", "/test-data-recommended-films.sql"})
+    void getRecommendedFilmsCachedUntilLikesChangeTest() {
+        Assertions.assertEquals(List.of(2), filmIds(filmDbStorage.getRecommendedFilms(1)));
+        Assertions.assertEquals(List.of(1), filmIds(filmDbStorage.getRecommendedFilms(2)));
+        Assertions.assertEquals(2, likeIndex.getCachedCount());
+
+        filmDbStorage.deleteLike(2, 2);
+        Assertions.assertEquals(0, likeIndex.getCachedCount());
+        Assertions.assertEquals(List.of(), filmIds(filmDbStorage.getRecommendedFilms(1)));
+
+        filmDbStorage.like(2, 2);
+        Assertions.assertEquals(List.of(2), filmIds(filmDbStorage.getRecommendedFilms(1)));
+    }
+
+    private List<Integer> filmIds(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    private long countStatements(Runnable action) {
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        action.run();
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT SUM(EXECUTION_COUNT) FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                        "WHERE SQL_STATEMENT NOT LIKE 'SET %'", Long.class);
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        return count == null ? 0 : count;
+    }
+
+    private long countScannedRows(String sqlQuery) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN ANALYZE " + sqlQuery, String.class);
+        Matcher matcher = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+        long scanned = 0;
+        while (matcher.find()) {
+            scanned += Long.parseLong(matcher.group(1));
+        }
+        return scanned;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.export.ExportFormat;
+import ru.yandex.practicum.filmorate.service.export.ExportWriter;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmFetchExecutor;
+import ru.yandex.practicum.filmorate.storage.film.dao.FilmHydrator;
+import ru.yandex.practicum.filmorate.storage.genre.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.mpa.dao.MpaDbStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class FilmExportTest {
+
+    private static final int FILMS = Integer.getInteger("export.films", 1_000_000);
+    private static final long MAX_HEAP = 256L * 1024 * 1024;
+
+    private static FilmDbStorage filmDbStorage;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @BeforeAll
+    static void setUp(@TempDir Path dir) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:file:" + dir.resolve("export") + ";CACHE_SIZE=8192", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO directors (name) VALUES ('Director')");
+        for (int from = 1; from <= FILMS; from += 100_000) {
+            int to = Math.min(FILMS, from + 99_999);
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, rating_mpa_id) " +
+                    "SELECT CONCAT('film ', X), 'description', DATE '2000-01-01', 90, 1 + MOD(X, 5) " +
+                    "FROM SYSTEM_RANGE(?, ?)", from, to);
+            jdbcTemplate.update("INSERT INTO genre (film_id, genre_id) " +
+                    "SELECT X, 1 + MOD(X, 6) FROM SYSTEM_RANGE(?, ?)", from, to);
+            jdbcTemplate.update("INSERT INTO director_films (film_id, director_id) " +
+                    "SELECT X, 1 FROM SYSTEM_RANGE(?, ?) WHERE MOD(X, 10) = 0", from, to);
+        }
+
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(jdbcTemplate,
+                new MpaDbStorage(jdbcTemplate), new GenreDbStorage(jdbcTemplate), PrimaryReads.direct());
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, new FilmHydrator(jdbcTemplate, referenceDataCache,
+                new FilmFetchExecutor(false, 1, 1, Duration.ofSeconds(2), new SimpleMeterRegistry())),
+                referenceDataCache, new PopularityIndex(), new FilmSearchIndex(), new LikeIndex(),
+                new EntityCache(1000, Duration.ofMinutes(10)), PrimaryReads.direct());
+    }
+
+    @Test
+    public void exportsWholeCatalogAsNdjsonWithinFixedHeapTest() throws IOException {
+        Assertions.assertTrue(Runtime.getRuntime().maxMemory() <= MAX_HEAP,
+                "Тест выгрузки должен запускаться с ограниченной кучей");
+        LineCountingStream out = new LineCountingStream();
+
+        ExportWriter.<Film>write(objectMapper, ExportFormat.NDJSON, out, c -> filmDbStorage.exportFilms(1000, c));
+
+        Assertions.assertEquals(FILMS, out.lines);
+        JsonNode last = objectMapper.readTree(out.lastLine.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(FILMS, last.get("id").asInt());
+        Assertions.assertEquals("film " + FILMS, last.get("name").asText());
+        Assertions.assertEquals(1 + FILMS % 6, last.get("genres").get(0).get("id").asInt());
+    }
+
+    private static class LineCountingStream extends OutputStream {
+        private long lines;
+        private ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+        private ByteArrayOutputStream lastLine = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int start = off;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    currentLine.write(b, start, i - start);
+                    lines++;
+                    lastLine = currentLine;
+                    currentLine = new ByteArrayOutputStream();
+                    start = i + 1;
+                }
+            }
+            currentLine.write(b, start, off + len - start);
+        }
+    }
+}
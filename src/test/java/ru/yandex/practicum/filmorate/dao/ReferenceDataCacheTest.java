@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
+import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.director.dao.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.mpa.dao.MpaDbStorage;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJdbcTest
+@Sql(value = {"/schematest.sql", "/datatest.sql"})
+class ReferenceDataCacheTest {
+    private final ReferenceDataCache referenceDataCache;
+    private final DirectorStorage directorStorage;
+    private final InterleavingJdbcTemplate interleavingJdbcTemplate;
+
+    @Autowired
+    public ReferenceDataCacheTest(JdbcTemplate jdbcTemplate) {
+        interleavingJdbcTemplate = new InterleavingJdbcTemplate(jdbcTemplate.getDataSource());
+        referenceDataCache = new ReferenceDataCache(interleavingJdbcTemplate,
+                new MpaDbStorage(jdbcTemplate), new GenreDbStorage(jdbcTemplate), PrimaryReads.direct());
+        directorStorage = new DirectorDbStorage(jdbcTemplate, referenceDataCache, new FilmSearchIndex(),
+                new EntityCache(1000, Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromCache() {
+        referenceDataCache.load();
+        referenceDataCache.getDirector(1);
+        long misses = referenceDataCache.getMissCount();
+        long hits = referenceDataCache.getHitCount();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("G", referenceDataCache.getMpa(1).getName());
+            assertEquals("Комедия", referenceDataCache.getGenre(1).getName());
+            assertEquals("firstDirector", referenceDataCache.getDirector(1).getName());
+            assertEquals(5, referenceDataCache.findAllMpa().size());
+            assertEquals(6, referenceDataCache.findAllGenres().size());
+        }
+
+        assertEquals(misses, referenceDataCache.getMissCount());
+        assertEquals(hits + 30, referenceDataCache.getHitCount());
+    }
+
+    @Test
+    void updatedDirectorIsReloaded() {
+        assertEquals("firstDirector", referenceDataCache.getDirector(1).getName());
+
+        directorStorage.updateDirector(Director.builder().id(1).name("UpdatedDirector").build());
+
+        assertEquals("UpdatedDirector", referenceDataCache.getDirector(1).getName());
+    }
+
+    @Test
+    void directorUpdatedDuringLoadIsNotCachedStale() {
+        interleavingJdbcTemplate.afterQuery = () ->
+                directorStorage.updateDirector(Director.builder().id(1).name("UpdatedDirector").build());
+
+        assertEquals("firstDirector", referenceDataCache.getDirector(1).getName());
+
+        assertEquals("UpdatedDirector", referenceDataCache.getDirector(1).getName());
+    }
+
+    @Test
+    void deletedDirectorIsEvicted() {
+        assertEquals("firstDirector", referenceDataCache.getDirector(1).getName());
+
+        directorStorage.deleteDirectorById(1);
+
+        assertThrows(NotFoundException.class, () -> referenceDataCache.getDirector(1));
+    }
+
+    @Test
+    void unknownMpaIsNotFound() {
+        final NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> referenceDataCache.getMpa(10));
+
+        assertEquals("Рейтинг mpa не найден.", exception.getMessage());
+    }
+
+    private static class InterleavingJdbcTemplate extends JdbcTemplate {
+        private Runnable afterQuery;
+
+        InterleavingJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            super.query(sql, rch, args);
+            Runnable action = afterQuery;
+            afterQuery = null;
+            if (action != null) {
+                action.run();
+            }
+        }
+    }
+}
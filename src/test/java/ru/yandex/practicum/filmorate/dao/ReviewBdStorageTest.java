@@ -5,10 +5,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.ReviewReaction;
+import ru.yandex.practicum.filmorate.storage.likeReview.dao.LikeReviewDbStorage;
 import ru.yandex.practicum.filmorate.storage.review.dao.ReviewBdStorage;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,11 +21,15 @@ import static org.junit.jupiter.api.Assertions.*;
 @Sql(value = {"/schematest.sql", "/datatest.sql"})
 public class ReviewBdStorageTest {
 
+    private final JdbcTemplate jdbcTemplate;
     private final ReviewBdStorage reviewBdStorage;
+    private final LikeReviewDbStorage likeReviewDbStorage;
 
     @Autowired
     public ReviewBdStorageTest(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
         reviewBdStorage = new ReviewBdStorage(jdbcTemplate);
+        likeReviewDbStorage = new LikeReviewDbStorage(jdbcTemplate);
     }
 
     @Test
@@ -72,5 +81,82 @@ public class ReviewBdStorageTest {
         assertEquals(3, reviewBdStorage.findAll(1, 10).size());
     }
 
+    @Test
+    public void findAllAfterTest() {
+        likeReviewDbStorage.createLike(3, 1);
+        likeReviewDbStorage.createDislike(1, 2);
+
+        List<Review> firstPage = reviewBdStorage.findAllAfter(1, null, 0, 2);
+        assertEquals(List.of(3, 2), reviewIds(firstPage));
+
+        Review last = firstPage.get(1);
+        List<Review> secondPage = reviewBdStorage.findAllAfter(1, last.getUseful(), last.getReviewId(), 2);
+        assertEquals(List.of(1), reviewIds(secondPage));
+        assertEquals(-1, secondPage.get(0).getUseful());
+        assertTrue(reviewBdStorage.findAllAfter(2, null, 0, 2).isEmpty());
+    }
+
+    @Test
+    public void usefulFollowsLikesTest() {
+        likeReviewDbStorage.createLike(2, 1);
+        likeReviewDbStorage.createLike(2, 2);
+        likeReviewDbStorage.createDislike(1, 3);
+        assertEquals(2, reviewBdStorage.findById(2).orElseThrow().getUseful());
+        assertEquals(List.of(2, 3, 1), reviewIds(reviewBdStorage.findAll(1, 10)));
+        assertEquals(List.of(2, 3, 1), reviewIds(reviewBdStorage.findAll(0, 10)));
+
+        likeReviewDbStorage.deleteLike(2, 1);
+        likeReviewDbStorage.deleteDislike(2, 1);
+        likeReviewDbStorage.deleteDislike(1, 3);
+        assertEquals(1, reviewBdStorage.findById(2).orElseThrow().getUseful());
+        assertEquals(0, reviewBdStorage.findById(1).orElseThrow().getUseful());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reviews r WHERE useful <> " +
+                "COALESCE((SELECT SUM(CASE WHEN lr.is_positive THEN 1 ELSE -1 END) FROM like_review lr " +
+                "WHERE lr.review_id = r.review_id), 0)", Integer.class));
+    }
+
+    @Test
+    public void reactionsAreIdempotentTest() {
+        likeReviewDbStorage.createLike(1, 2);
+        likeReviewDbStorage.createLike(1, 2);
+        assertEquals(1, reviewBdStorage.findById(1).orElseThrow().getUseful());
+
+        likeReviewDbStorage.createDislike(1, 2);
+        likeReviewDbStorage.deleteLike(1, 2);
+        assertEquals(-1, reviewBdStorage.findById(1).orElseThrow().getUseful());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM like_review", Integer.class));
+
+        likeReviewDbStorage.deleteDislike(1, 2);
+        assertEquals(0, reviewBdStorage.findById(1).orElseThrow().getUseful());
+        assertThrows(NotFoundException.class, () -> likeReviewDbStorage.createLike(99, 2));
+    }
+
+    @Test
+    public void applyReactionsTest() {
+        likeReviewDbStorage.createDislike(2, 3);
+
+        List<ReviewReaction> applied = likeReviewDbStorage.applyReactions(List.of(
+                new ReviewReaction(1, 1, true),
+                new ReviewReaction(1, 2, false),
+                new ReviewReaction(1, 2, true),
+                new ReviewReaction(2, 3, true),
+                new ReviewReaction(3, 1, null),
+                new ReviewReaction(3, 2, false),
+                new ReviewReaction(3, 2, null)));
+
+        assertEquals(3, applied.size());
+        assertEquals(2, reviewBdStorage.findById(1).orElseThrow().getUseful());
+        assertEquals(1, reviewBdStorage.findById(2).orElseThrow().getUseful());
+        assertEquals(0, reviewBdStorage.findById(3).orElseThrow().getUseful());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM like_review", Integer.class));
+        assertTrue(likeReviewDbStorage.applyReactions(List.of(new ReviewReaction(1, 1, true))).isEmpty());
+        assertThrows(NotFoundException.class,
+                () -> likeReviewDbStorage.applyReactions(List.of(new ReviewReaction(99, 1, true))));
+    }
+
+    private List<Integer> reviewIds(List<Review> reviews) {
+        return reviews.stream().map(Review::getReviewId).collect(Collectors.toList());
+    }
+
 
 }
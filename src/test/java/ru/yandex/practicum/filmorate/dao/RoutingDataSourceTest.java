@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.pool-name=routing-primary",
+        "filmorate.datasource.replicas[0].url=" + RoutingDataSourceTest.REPLICA_URL,
+        "filmorate.datasource.replicas[0].username=sa",
+        "filmorate.datasource.replicas[0].password=password",
+        "filmorate.datasource.replicas[0].hikari.maximum-pool-size=2"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class RoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private final UserService userService;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final EntityCache entityCache;
+
+    @BeforeAll
+    static void createReplica() {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "password");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replica);
+        new JdbcTemplate(replica).update("INSERT INTO users (user_id, email, login, name, birthday) " +
+                "VALUES (1, 'replica@mail.ru', 'replica', 'Реплика', '2000-01-01')");
+    }
+
+    @Test
+    void readOnlyTransactionsAreServedByReplicaTest() {
+        User user = addUser("primary");
+
+        assertThat(userService.findAllUsers()).extracting(User::getLogin).containsExactly("replica");
+        assertThat(jdbcTemplate.queryForObject("SELECT login FROM users WHERE user_id = ?", String.class,
+                user.getId())).isEqualTo("primary");
+    }
+
+    @Test
+    void readsAfterWriteAreServedByPrimaryTest() {
+        User user = addUser("writer");
+        User friend = addUser("friend");
+        userService.addFriend(user.getId(), friend.getId());
+        entityCache.evictUser(friend.getId());
+
+        assertThat(userService.getUserById(friend.getId()).getLogin()).isEqualTo("friend");
+        assertThat(userService.getFeed(user.getId())).extracting(Event::getEntityId)
+                .containsExactly(friend.getId());
+    }
+
+    @Test
+    void poolMetricsArePublishedForEachRouteTest() {
+        userService.findAllUsers();
+
+        assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "routing-primary").gauge())
+                .isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "filmorate-replica-1").gauge())
+                .isNotNull()
+                .satisfies(gauge -> assertThat(gauge.value()).isEqualTo(2));
+    }
+
+    private User addUser(String login) {
+        return userService.addUser(User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.datasource.PrimaryReads;
+import ru.yandex.practicum.filmorate.storage.index.FriendIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.user.dao.UserDbStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DataJdbcTest
+@Sql(value = {"/schematest.sql", "/datatest.sql"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserDbStorageTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final UserDbStorage userDbStorage;
+
+    @Autowired
+    public UserDbStorageTest(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        userDbStorage = new UserDbStorage(jdbcTemplate, new PopularityIndex(), new LikeIndex(), new FriendIndex(),
+                new EntityCache(1000, Duration.ofMinutes(10)), PrimaryReads.direct());
+    }
+
+    @Test
+    public void getFriendsByUserIdTest() {
+        Assertions.assertEquals(List.of(3), userIds(userDbStorage.getFriendsByUserId(1)));
+        Assertions.assertEquals(List.of(), userIds(userDbStorage.getFriendsByUserId(3)));
+        Assertions.assertThrows(NotFoundException.class, () -> userDbStorage.getFriendsByUserId(99));
+    }
+
+    @Test
+    public void getCommonsFriendsTest() {
+        Assertions.assertEquals(List.of(3), userIds(userDbStorage.getCommonsFriends(1, 2)));
+        Assertions.assertEquals(List.of(), userIds(userDbStorage.getCommonsFriends(1, 3)));
+    }
+
+    @Test
+    public void friendIndexFollowsWritesTest() {
+        userDbStorage.getCommonsFriends(1, 2);
+        userDbStorage.addFriend(1, 2);
+        userDbStorage.addFriend(2, 1);
+        Assertions.assertEquals(List.of(2, 3), userIds(userDbStorage.getFriendsByUserId(1)));
+        Assertions.assertEquals(List.of(3), userIds(userDbStorage.getCommonsFriends(1, 2)));
+
+        userDbStorage.deleteFriend(1, 3);
+        Assertions.assertEquals(List.of(2), userIds(userDbStorage.getFriendsByUserId(1)));
+        Assertions.assertEquals(List.of(), userIds(userDbStorage.getCommonsFriends(1, 2)));
+    }
+
+    @Test
+    public void friendsAreServedWithSingleQueryTest() {
+        userDbStorage.getCommonsFriends(1, 2);
+
+        Assertions.assertEquals(1, countStatements(() -> userDbStorage.getCommonsFriends(1, 2)));
+        Assertions.assertEquals(1, countStatements(() -> userDbStorage.getFriendsByUserId(1)));
+    }
+
+    @Test
+    public void getUserByIdIsCachedUntilUserChangesTest() {
+        User user = userDbStorage.getUserById(2);
+        Assertions.assertEquals(0, countStatements(() -> userDbStorage.getUserById(2)));
+
+        user.setName("renamed");
+        userDbStorage.updateUser(user);
+        Assertions.assertEquals("renamed", userDbStorage.getUserById(2).getName());
+    }
+
+    private List<Integer> userIds(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    private long countStatements(Runnable action) {
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        action.run();
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT SUM(EXECUTION_COUNT) FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                        "WHERE SQL_STATEMENT NOT LIKE 'SET %'", Long.class);
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        return count == null ? 0 : count;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service.event;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,13 +8,18 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.model.feed.Event;
 import ru.yandex.practicum.filmorate.model.feed.EventOperation;
 import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.model.page.Page;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -29,6 +35,9 @@ class EventServiceTest {
     @Autowired
     private final FilmService filmService;
 
+    @Autowired
+    private final MeterRegistry meterRegistry;
+
     @Test
     void addAndDeleteLikesTest() {
         filmService.like(1, 1);
@@ -80,6 +89,74 @@ class EventServiceTest {
         assertFieldsOfEvent(event2, 2, 1, EventType.LIKE, EventOperation.ADD, 1);
     }
 
+    @Test
+    void feedPagesTest() {
+        userService.addFriend(1, 2);
+        filmService.like(1, 1);
+        filmService.deleteLike(1, 1);
+
+        Page<Event> firstPage = userService.getFeed(1, null, 2);
+        assertThat(firstPage.getItems()).extracting(Event::getEventId).containsExactly(1, 2);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        Page<Event> secondPage = userService.getFeed(1, firstPage.getNextCursor(), 2);
+        assertThat(secondPage.getItems()).extracting(Event::getEventId).containsExactly(3);
+        assertThat(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void repeatedLikeAndDeleteLikeEmitOneEventEachTest() {
+        filmService.like(1, 1);
+        filmService.like(1, 1);
+        assertThat(userService.getFeed(1)).hasSize(1);
+
+        filmService.deleteLike(1, 1);
+        filmService.deleteLike(1, 1);
+        List<Event> events = userService.getFeed(1);
+        assertThat(events).hasSize(2);
+        assertFieldsOfEvent(events.get(0), 1, 1, EventType.LIKE, EventOperation.ADD, 1);
+        assertFieldsOfEvent(events.get(1), 2, 1, EventType.LIKE, EventOperation.REMOVE, 1);
+    }
+
+    @Test
+    void batchLikesEmitEventsForAppliedChangesTest() {
+        filmService.like(2, 1);
+        filmService.applyLikes(List.of(
+                new LikeOperation(1, 1, EventOperation.ADD),
+                new LikeOperation(1, 1, EventOperation.ADD),
+                new LikeOperation(2, 1, EventOperation.ADD),
+                new LikeOperation(2, 1, EventOperation.REMOVE)));
+
+        List<Event> events = userService.getFeed(1);
+        assertThat(events).hasSize(3);
+        assertFieldsOfEvent(events.get(1), 2, 1, EventType.LIKE, EventOperation.ADD, 1);
+        assertFieldsOfEvent(events.get(2), 3, 1, EventType.LIKE, EventOperation.REMOVE, 2);
+    }
+
+    @Test
+    void concurrentWritesAreReadBackByEachUserTest() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int userId = 2; userId <= 5; userId++) {
+            int id = userId;
+            executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    filmService.like(1, id);
+                    filmService.deleteLike(1, id);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        for (int userId = 2; userId <= 5; userId++) {
+            List<Event> events = userService.getFeed(userId);
+            assertThat(events).hasSize(100);
+            assertThat(events).extracting(Event::getOperation).containsOnly(EventOperation.ADD, EventOperation.REMOVE);
+        }
+        assertThat(meterRegistry.get("filmorate.feed.flush").timer().count()).isPositive();
+        assertThat(meterRegistry.get("filmorate.feed.queue.depth").gauge().value()).isZero();
+    }
+
     private static void assertFieldsOfEvent(Event event, int eventId, int userId, EventType type, EventOperation operation, int entityId) {
         assertThat(event).hasFieldOrPropertyWithValue("eventId", eventId);
         assertThat(event).hasFieldOrPropertyWithValue("userId", userId);
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.storage.event.dao.EventDbStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJdbcTest
+@Sql({"/test-schema-feed.sql", "/test-data-feed.sql"})
+class FeedRetentionTest {
+
+    private final EventDbStorage eventDbStorage;
+
+    @Autowired
+    FeedRetentionTest(JdbcTemplate jdbcTemplate) {
+        eventDbStorage = new EventDbStorage(jdbcTemplate);
+    }
+
+    @Test
+    void oldEventsAreArchivedWithAddRemovePairsMergedTest() {
+        List<Event> created = eventDbStorage.createEvents(List.of(
+                event(1_000, EventType.LIKE, EventOperation.ADD, 1),
+                event(1_001, EventType.LIKE, EventOperation.REMOVE, 1),
+                event(1_002, EventType.LIKE, EventOperation.ADD, 2),
+                event(1_003, EventType.FRIEND, EventOperation.ADD, 2),
+                event(1_004, EventType.FRIEND, EventOperation.REMOVE, 2),
+                event(1_005, EventType.FRIEND, EventOperation.ADD, 2),
+                event(System.currentTimeMillis(), EventType.LIKE, EventOperation.REMOVE, 2)));
+
+        assertThat(retention(100).archiveBefore(10_000)).isEqualTo(6);
+
+        assertThat(eventIds(eventDbStorage.getFeed(1))).containsExactly(created.get(6).getEventId());
+        assertThat(eventIds(eventDbStorage.getArchivedFeedAfter(1, 0, 10)))
+                .containsExactly(created.get(2).getEventId(), created.get(5).getEventId());
+        assertThat(eventDbStorage.getArchivedFeedAfter(1, 0, 10).get(0))
+                .isEqualTo(created.get(2));
+    }
+
+    @Test
+    void archiveRunsInBatchesUntilWindowIsEmptyTest() {
+        eventDbStorage.createEvents(List.of(
+                event(1_000, EventType.LIKE, EventOperation.ADD, 1),
+                event(1_001, EventType.LIKE, EventOperation.ADD, 2),
+                event(1_002, EventType.REVIEW, EventOperation.ADD, 1),
+                event(1_003, EventType.REVIEW, EventOperation.UPDATE, 1),
+                event(1_004, EventType.REVIEW, EventOperation.REMOVE, 1)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        assertThat(retention(2, meterRegistry).archiveBefore(10_000)).isEqualTo(5);
+
+        assertThat(eventDbStorage.getFeed(1)).isEmpty();
+        assertThat(eventDbStorage.getArchivedFeedAfter(1, 0, 10)).hasSize(5);
+        assertThat(meterRegistry.get("filmorate.feed.archived").counter().count()).isEqualTo(5);
+        assertThat(retention(2).archiveBefore(10_000)).isZero();
+    }
+
+    @Test
+    void compactKeepsUnpairedEventsTest() {
+        List<Event> events = List.of(
+                event(1, 1_000, EventType.FRIEND, EventOperation.REMOVE, 3),
+                event(2, 1_001, EventType.REVIEW, EventOperation.ADD, 1),
+                event(3, 1_002, EventType.REVIEW, EventOperation.UPDATE, 1),
+                event(4, 1_003, EventType.REVIEW, EventOperation.REMOVE, 1),
+                event(5, 1_004, EventType.LIKE, EventOperation.ADD, 1),
+                event(6, 1_005, EventType.LIKE, EventOperation.ADD, 2),
+                event(7, 1_006, EventType.LIKE, EventOperation.REMOVE, 1));
+
+        assertThat(eventIds(FeedRetention.compact(events))).containsExactly(1, 2, 3, 4, 6);
+    }
+
+    private FeedRetention retention(int batchSize) {
+        return retention(batchSize, new SimpleMeterRegistry());
+    }
+
+    private FeedRetention retention(int batchSize, SimpleMeterRegistry meterRegistry) {
+        return new FeedRetention(eventDbStorage, meterRegistry, false, Duration.ofDays(90), Duration.ofHours(1),
+                batchSize);
+    }
+
+    private static List<Integer> eventIds(List<Event> events) {
+        return events.stream().map(Event::getEventId).collect(Collectors.toList());
+    }
+
+    private static Event event(long timestamp, EventType eventType, EventOperation operation, int entityId) {
+        return event(0, timestamp, eventType, operation, entityId);
+    }
+
+    private static Event event(int eventId, long timestamp, EventType eventType, EventOperation operation,
+                               int entityId) {
+        return Event.builder()
+                .eventId(eventId)
+                .timestamp(timestamp)
+                .userId(1)
+                .eventType(eventType)
+                .operation(operation)
+                .entityId(entityId)
+                .build();
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.storage.event.dao.EventDbStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJdbcTest
+@Sql({"/test-schema-feed.sql", "/test-data-feed.sql"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FeedStreamTest {
+
+    private final EventDbStorage eventDbStorage;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FeedStream feedStream;
+
+    @Autowired
+    FeedStreamTest(JdbcTemplate jdbcTemplate) {
+        eventDbStorage = new EventDbStorage(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feedStream.stop();
+    }
+
+    @Test
+    void thousandsOfSubscribersReceiveNewEventsTest() throws InterruptedException {
+        feedStream = feedStream(64);
+        List<RecordingEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            RecordingEmitter emitter = new RecordingEmitter(null);
+            emitters.add(emitter);
+            feedStream.subscribe(i % 1000 + 1, null, emitter);
+        }
+        assertThat(feedStream.getSubscriberCount()).isEqualTo(5000);
+
+        for (int round = 1; round <= 20; round++) {
+            int eventId = round;
+            feedStream.publish(IntStream.rangeClosed(1, 1000)
+                    .mapToObj(userId -> event(eventId, userId))
+                    .collect(Collectors.toList()));
+        }
+
+        List<Integer> expected = IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toList());
+        awaitUntil(() -> emitters.stream().allMatch(emitter -> emitter.ids.size() == expected.size()));
+        assertThat(emitters).allSatisfy(emitter -> assertThat(emitter.ids).isEqualTo(expected));
+        assertThat(meterRegistry.get("filmorate.feed.stream.dropped").counter().count()).isZero();
+    }
+
+    @Test
+    void resumesFromLastEventIdWithoutDuplicatesTest() throws InterruptedException {
+        feedStream = feedStream(64);
+        List<Event> history = eventDbStorage.createEvents(List.of(event(0, 1), event(0, 1), event(0, 1)));
+        RecordingEmitter emitter = new RecordingEmitter(null);
+
+        feedStream.subscribe(1, history.get(0).getEventId(), emitter);
+        feedStream.publish(history.subList(1, 3));
+        List<Event> created = eventDbStorage.createEvents(List.of(event(0, 1), event(0, 2)));
+        feedStream.publish(created);
+
+        List<Integer> expected = List.of(history.get(1).getEventId(), history.get(2).getEventId(),
+                created.get(0).getEventId());
+        awaitUntil(() -> emitter.ids.size() >= expected.size());
+        Thread.sleep(50);
+        assertThat(emitter.ids).isEqualTo(expected);
+    }
+
+    @Test
+    void slowSubscriberIsDroppedTest() throws InterruptedException {
+        feedStream = feedStream(4);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter other = new RecordingEmitter(null);
+        feedStream.subscribe(1, null, slow);
+        feedStream.subscribe(2, null, other);
+
+        feedStream.publish(IntStream.rangeClosed(1, 10).mapToObj(id -> event(id, 1)).collect(Collectors.toList()));
+        feedStream.publish(List.of(event(11, 2)));
+        release.countDown();
+
+        awaitUntil(() -> slow.completed && other.ids.size() == 1);
+        assertThat(feedStream.getSubscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("filmorate.feed.stream.dropped").counter().count()).isEqualTo(1);
+        assertThat(slow.ids.size()).isLessThan(10);
+    }
+
+    private FeedStream feedStream(int bufferSize) {
+        return new FeedStream(eventDbStorage, meterRegistry, bufferSize, 4, Duration.ofMinutes(1),
+                Duration.ofMinutes(1));
+    }
+
+    private static Event event(int eventId, int userId) {
+        return Event.builder()
+                .eventId(eventId)
+                .timestamp(System.currentTimeMillis())
+                .userId(userId)
+                .eventType(EventType.LIKE)
+                .operation(EventOperation.ADD)
+                .entityId(1)
+                .build();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Integer> ids = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch release;
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof Event) {
+                    ids.add(((Event) data.getData()).getEventId());
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
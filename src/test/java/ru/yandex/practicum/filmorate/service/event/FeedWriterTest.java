@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.model.feed.EventType;
+import ru.yandex.practicum.filmorate.storage.event.dao.EventDbStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJdbcTest
+@Sql({"/test-schema-feed.sql", "/test-data-feed.sql"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FeedWriterTest {
+
+    private final FailingEventStorage eventStorage;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FeedStream feedStream;
+    private FeedWriter feedWriter;
+
+    @Autowired
+    FeedWriterTest(JdbcTemplate jdbcTemplate) {
+        eventStorage = new FailingEventStorage(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feedWriter.stop();
+        feedStream.stop();
+    }
+
+    @Test
+    void failedBatchIsWrittenRowByRowBeforeAcknowledgedTest() {
+        feedWriter = feedWriter(3);
+        eventStorage.failingBatches = 1;
+
+        feedWriter.enqueueAll(List.of(event(1, 1), event(1, 2), event(2, 3)));
+        assertThat(feedWriter.awaitFlushed(1)).isTrue();
+
+        assertThat(eventStorage.getFeed(1)).extracting(Event::getEntityId).containsExactly(1, 2);
+        assertThat(meterRegistry.get("filmorate.feed.dropped").counter().count()).isZero();
+    }
+
+    @Test
+    void failingRowIsRetriedAndHoldsBackAcknowledgementTest() {
+        feedWriter = feedWriter(5);
+        eventStorage.failingBatches = Integer.MAX_VALUE;
+        eventStorage.failuresByEntity.put(2, 3);
+
+        feedWriter.enqueueAll(List.of(event(1, 1), event(1, 2), event(2, 3)));
+        assertThat(feedWriter.awaitFlushed(2)).isTrue();
+
+        assertThat(eventStorage.getFeed(1)).extracting(Event::getEntityId).containsExactlyInAnyOrder(1, 2);
+        assertThat(eventStorage.getFeed(2)).extracting(Event::getEntityId).containsExactly(3);
+        assertThat(meterRegistry.get("filmorate.feed.dropped").counter().count()).isZero();
+    }
+
+    @Test
+    void rowIsDroppedAfterMaxAttemptsTest() {
+        feedWriter = feedWriter(2);
+        eventStorage.failuresByEntity.put(1, Integer.MAX_VALUE);
+
+        feedWriter.enqueue(event(1, 1));
+        feedWriter.enqueue(event(1, 2));
+        assertThat(feedWriter.awaitFlushed(1)).isTrue();
+
+        assertThat(eventStorage.getFeed(1)).extracting(Event::getEntityId).containsExactly(2);
+        assertThat(meterRegistry.get("filmorate.feed.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchWithDeletedUserDoesNotDuplicateOtherEventsTest() {
+        feedWriter = feedWriter(2);
+
+        feedWriter.enqueueAll(List.of(event(1, 1), event(99, 2), event(2, 3), event(1, 4)));
+        assertThat(feedWriter.awaitFlushed(99)).isTrue();
+
+        assertThat(eventStorage.getFeed(1)).extracting(Event::getEntityId).containsExactlyInAnyOrder(1, 4);
+        assertThat(eventStorage.getFeed(2)).extracting(Event::getEntityId).containsExactly(3);
+        assertThat(meterRegistry.get("filmorate.feed.dropped").counter().count()).isEqualTo(1);
+    }
+
+    private FeedWriter feedWriter(int maxAttempts) {
+        feedStream = new FeedStream(eventStorage, meterRegistry, 16, 1, Duration.ofMinutes(1),
+                Duration.ofMinutes(1));
+        FeedWriter writer = new FeedWriter(eventStorage, meterRegistry, feedStream, 100, 10, 50,
+                maxAttempts, 10);
+        writer.start();
+        return writer;
+    }
+
+    private static Event event(int userId, int entityId) {
+        return Event.builder()
+                .timestamp(System.currentTimeMillis())
+                .userId(userId)
+                .eventType(EventType.LIKE)
+                .operation(EventOperation.ADD)
+                .entityId(entityId)
+                .build();
+    }
+
+    private static class FailingEventStorage extends EventDbStorage {
+        private final Map<Integer, Integer> failuresByEntity = new ConcurrentHashMap<>();
+        private volatile int failingBatches;
+
+        FailingEventStorage(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+
+        @Override
+        public List<Event> createEvents(List<Event> events) {
+            if (events.size() > 1 && failingBatches-- > 0) {
+                throw new DataAccessResourceFailureException("Пакет не записан");
+            }
+            for (Event event : events) {
+                if (failuresByEntity.merge(event.getEntityId(), -1, Integer::sum) >= 0) {
+                    throw new DataAccessResourceFailureException("Событие не записано");
+                }
+            }
+            return super.createEvents(events);
+        }
+    }
+}
@@ -20,7 +20,8 @@ CREATE TABLE IF NOT EXISTS films
     description   VARCHAR(200) NOT NULL,
     release_date  TIMESTAMP    NOT NULL,
     duration      INTEGER         NOT NULL,
-    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id)
+    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id),
+    like_count    INTEGER      NOT NULL DEFAULT 0
 
 );
 
@@ -78,12 +79,22 @@ CREATE TABLE IF NOT EXISTS reviews
     content VARCHAR(400) NOT NULL,
     is_positive BOOLEAN NOT NULL,
     user_id INTEGER NOT NULL,
-    film_id INTEGER NOT NULL
+    film_id INTEGER NOT NULL,
+    useful INTEGER NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS like_review
 (
     review_id INTEGER NOT NULL,
     user_id INTEGER NOT NULL,
-    is_positive BOOLEAN NOT NULL
-);
\ No newline at end of file
+    is_positive BOOLEAN NOT NULL,
+    PRIMARY KEY (review_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS genre_film_id_idx ON genre (film_id);
+CREATE UNIQUE INDEX IF NOT EXISTS likes_film_id_user_id_idx ON likes (film_id, user_id);
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+CREATE INDEX IF NOT EXISTS friends_user_id_idx ON friends (user_id);
+CREATE INDEX IF NOT EXISTS like_review_user_id_idx ON like_review (user_id);
+CREATE INDEX IF NOT EXISTS reviews_film_id_useful_idx ON reviews (film_id, useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS reviews_useful_idx ON reviews (useful DESC, review_id);
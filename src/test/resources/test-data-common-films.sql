@@ -41,3 +41,5 @@ INSERT INTO likes (film_id, user_id)
            (2, 3),
            (2, 4);
 
+UPDATE films
+SET like_count = (SELECT COUNT(*) FROM likes WHERE likes.film_id = films.film_id);
@@ -43,3 +43,6 @@ VALUES (3, 1),
        (3, 2),
        (2, 2),
        (1, 1);
+
+UPDATE films
+SET like_count = (SELECT COUNT(*) FROM likes WHERE likes.film_id = films.film_id);
@@ -20,7 +20,8 @@ CREATE TABLE IF NOT EXISTS films
     description   VARCHAR(200) NOT NULL,
     release_date  TIMESTAMP    NOT NULL,
     duration      INTEGER         NOT NULL,
-    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id)
+    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id),
+    like_count    INTEGER      NOT NULL DEFAULT 0
 
 );
 
@@ -70,4 +71,9 @@ CREATE TABLE IF NOT EXISTS friends
     user_id         INTEGER NOT NULL REFERENCES users (user_id),
     friend_id       INTEGER NOT NULL REFERENCES users (user_id)
 
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS genre_film_id_idx ON genre (film_id);
+CREATE UNIQUE INDEX IF NOT EXISTS likes_film_id_user_id_idx ON likes (film_id, user_id);
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+CREATE INDEX IF NOT EXISTS friends_user_id_idx ON friends (user_id);
@@ -20,7 +20,8 @@ CREATE TABLE IF NOT EXISTS films
     description   VARCHAR(200) NOT NULL,
     release_date  TIMESTAMP    NOT NULL,
     duration      INTEGER         NOT NULL,
-    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id)
+    rating_mpa_id INTEGER REFERENCES mpa_type (rating_mpa_id),
+    like_count    INTEGER      NOT NULL DEFAULT 0
 
 );
 
@@ -81,4 +82,22 @@ CREATE TABLE IF NOT EXISTS feed
     operation  VARCHAR(10) NOT NULL,
     entity_id  INTEGER NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS feed_archive
+(
+    event_id   INTEGER PRIMARY KEY,
+    user_id    INTEGER NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    timestamp  BIGINT NOT NULL,
+    event_type VARCHAR(10) NOT NULL,
+    operation  VARCHAR(10) NOT NULL,
+    entity_id  INTEGER NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS genre_film_id_idx ON genre (film_id);
+CREATE UNIQUE INDEX IF NOT EXISTS likes_film_id_user_id_idx ON likes (film_id, user_id);
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+CREATE INDEX IF NOT EXISTS friends_user_id_idx ON friends (user_id);
+CREATE INDEX IF NOT EXISTS feed_user_id_event_id_idx ON feed (user_id, event_id);
+CREATE INDEX IF NOT EXISTS feed_timestamp_event_id_idx ON feed (timestamp, event_id);
+CREATE INDEX IF NOT EXISTS feed_archive_user_id_event_id_idx ON feed_archive (user_id, event_id);
@@ -57,4 +57,6 @@ VALUES (1, 6),
        (3, 1),
        (4, 6),
        (4, 1),
-       (5, 2);
\ No newline at end of file
+       (5, 2);
+
+UPDATE films SET like_count = (SELECT COUNT(*) FROM likes WHERE likes.film_id = films.film_id);